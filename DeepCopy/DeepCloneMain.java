@@ -1,12 +1,32 @@
+import deepcopy.CopyObjectContext;
+import deepcopy.CopyStatistics;
 import deepcopy.DeepCopyModule;
+import deepcopy.DeepCopyModulePlugin;
 import usercodeexample.ArraysArrayListCopyPlugin;
 import usercodeexample.Man;
 import usercodeexample.ManExtended;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -137,6 +157,429 @@ public class DeepCloneMain {
         assertThat(copy.getRelativesMemberNames().keySet().stream().anyMatch(c -> c == copySister), "relativesMemberNames key object reference");
 
         assertThat(Arrays.stream(copy.getReferrals()).anyMatch(c -> c == copyBrother), "referrals element object reference");
+
+        assertPerObjectPluginAndFailingConstructor();
+        assertSpecializedCopiers(client);
+        assertLongCycleCopy(copyModule);
+        assertParallelCopy(client);
+        assertImmutableArrayElementsCopy();
+        assertCollectionsCopy(copyModule);
+        assertCopyInto(copyModule, client, copy);
+        assertCompiledPrototype(copyModule, client);
+        assertIncrementalSnapshots(copyModule, client);
+        assertFieldRulesAndMaxDepth(client);
+        assertShortestPathDepth();
+        assertDepthLimitedSnapshots(client);
+        assertGeneratedCopier();
+        assertCompactConstructorCopy(copyModule);
+        assertStatistics(client);
+        assertConcurrentCollectionsCopy(copyModule);
+    }
+
+    private static class Ticket {
+        private final String code;
+
+        // Declared first, so it's the constructor copy falls back to
+        private Ticket(String code) {
+            this.code = code;
+        }
+
+        private Ticket() {
+            throw new IllegalStateException("Ticket needs code");
+        }
+    }
+
+    // Plugin of deprecated per-object API, which shares void tickets
+    private static class VoidTicketPlugin implements DeepCopyModulePlugin {
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean supports(Object src) {
+            return src instanceof Ticket ticket && ticket.code.equals("VOID");
+        }
+
+        @Override
+        public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+            context.putCopyInstanceFor(src, src);
+            return true;
+        }
+    }
+
+    // Copies made before and after copiers of client graph classes are specialized are the same
+    private static void assertSpecializedCopiers(ManExtended client) throws Exception {
+        var specializingModule = clientModuleBuilder()
+                .specializeCopiersAfter(2)
+                .build();
+        for (int i = 0; i < 4; i++) {
+            ManExtended copy = specializingModule.deepCopy(client);
+            assertManCopy(client, copy, 2);
+            assertThat(copy.getRelatives().contains(copy), "specialized copier relatives element object reference");
+        }
+    }
+
+    // Fork threshold of one element makes every collection and array of client graph forked
+    private static void assertParallelCopy(ManExtended client) throws Exception {
+        var parallelModule = clientModuleBuilder()
+                .parallelCopy(ForkJoinPool.commonPool(), 1)
+                .build();
+        assertManCopy(client, parallelModule.deepCopy(client), 2);
+        List<ManExtended> copies = parallelModule.deepCopyAll(List.of(client, client));
+        assertThat(copies.get(0) == copies.get(1), "deepCopyAll shared root object reference");
+        assertManCopy(client, copies.get(0), 2);
+    }
+
+    private record Money(BigDecimal amount) {
+    }
+
+    // Deeply immutable elements are shared by array copy, unless their class is copied by function
+    private static void assertImmutableArrayElementsCopy() throws Exception {
+        Money money = new Money(BigDecimal.TEN);
+        Money[] copies = DeepCopyModule.builder().build().deepCopy(new Money[]{money});
+        assertThat(copies[0] == money, "immutable array element object reference");
+        var moneyCopyingModule = DeepCopyModule.builder()
+                .registerCustomCopyFunction(Money.class, m -> new Money(m.amount()))
+                .build();
+        copies = moneyCopyingModule.deepCopy(new Money[]{money});
+        assertThat(copies[0] != money && copies[0].equals(money), "array element copy by custom copy function");
+    }
+
+    private static void assertCopyInto(DeepCopyModule copyModule, ManExtended client, ManExtended previousCopy) throws Exception {
+        ManExtended target = copyModule.deepCopy(previousCopy);
+        ManExtended copy = copyModule.deepCopyInto(client, target);
+        assertThat(copy == target, "deepCopyInto reuses target");
+        assertManCopy(client, copy, 2);
+        assertThat(copy.getRelatives().contains(copy), "deepCopyInto relatives element object reference");
+    }
+
+    private static void assertCompiledPrototype(DeepCopyModule copyModule, ManExtended client) throws Exception {
+        var prototype = copyModule.compile(client);
+        ManExtended instance = prototype.newInstance();
+        ManExtended otherInstance = prototype.newInstance();
+        assertManCopy(client, instance, 2);
+        assertManCopy(client, otherInstance, 2);
+        assertThat(instance != otherInstance && instance.getRelatives() != otherInstance.getRelatives(), "compiled prototype instances reference");
+        assertThat(instance.getRelatives().contains(instance), "compiled prototype relatives element object reference");
+    }
+
+    // Unchanged subgraphs are shared by consecutive snapshots, changed ones are copied again
+    private static void assertIncrementalSnapshots(DeepCopyModule copyModule, ManExtended client) throws Exception {
+        var snapshots = copyModule.incrementalSnapshots(client);
+        ManExtended first = snapshots.snapshot();
+        assertManCopy(client, first, 2);
+        double[] changedRatings = client.getBookRatings()[2];
+        changedRatings[0]--;
+        try {
+            ManExtended second = snapshots.snapshot();
+            assertManCopy(client, second, 2);
+            assertThat(first.getBookRatings()[2][0] == changedRatings[0] + 1, "previous snapshot of changed bookRatings");
+            assertThat(first.getBookRatings()[0] == second.getBookRatings()[0], "snapshots share unchanged bookRatings");
+        } finally {
+            changedRatings[0]++;
+        }
+    }
+
+    private static class Node {
+        private final int value;
+        private Node next;
+
+        private Node(int value) {
+            this.value = value;
+        }
+    }
+
+    // Graph is walked with worklists, so long cycle doesn't overflow stack
+    private static void assertLongCycleCopy(DeepCopyModule copyModule) throws Exception {
+        int length = 100_000;
+        Node head = new Node(0);
+        Node tail = head;
+        for (int i = 1; i < length; i++) {
+            tail.next = new Node(i);
+            tail = tail.next;
+        }
+        tail.next = head;
+        Node copyHead = copyModule.deepCopy(head);
+        Node node = copyHead;
+        for (int i = 0; i < length; i++) {
+            assertThat(node != null && node.value == i, "long cycle node value");
+            node = node.next;
+        }
+        assertThat(node == copyHead, "long cycle back reference");
+    }
+
+    private enum Shelf { UPPER, LOWER }
+
+    // Element shared by all structures is copied once and every structure copy references that copy
+    private static void assertCollectionsCopy(DeepCopyModule copyModule) throws Exception {
+        Node shared = new Node(1);
+        TreeMap<Integer, Node> treeMap = new TreeMap<>(Map.of(1, shared, 2, new Node(2)));
+        EnumMap<Shelf, Node> enumMap = new EnumMap<>(Shelf.class);
+        enumMap.put(Shelf.UPPER, shared);
+        Map<String, Object> structures = new LinkedHashMap<>();
+        structures.put("array", new Object[]{shared});
+        structures.put("arrayList", new ArrayList<>(List.of(shared)));
+        structures.put("arrayDeque", new ArrayDeque<>(List.of(shared)));
+        structures.put("hashSet", new HashSet<>(Set.of(shared)));
+        structures.put("treeMap", treeMap);
+        structures.put("enumMap", enumMap);
+        structures.put("enumSet", EnumSet.of(Shelf.LOWER));
+        structures.put("unmodifiableList", Collections.unmodifiableList(new ArrayList<>(List.of(shared))));
+        structures.put("immutableList", List.of(shared));
+        structures.put("immutableMap", Map.of("shared", shared));
+        structures.put("streamList", Stream.of(shared, null).toList());
+
+        Map<String, Object> copies = copyModule.deepCopy(structures);
+        Node sharedCopy = (Node) ((Object[]) copies.get("array"))[0];
+        assertThat(sharedCopy != shared && sharedCopy.value == shared.value, "structure element copy");
+        assertThat(((ArrayList<?>) copies.get("arrayList")).get(0) == sharedCopy, "ArrayList element object reference");
+        assertThat(((ArrayDeque<?>) copies.get("arrayDeque")).peek() == sharedCopy, "ArrayDeque element object reference");
+        assertThat(((HashSet<?>) copies.get("hashSet")).contains(sharedCopy), "HashSet element object reference");
+        TreeMap<?, ?> treeMapCopy = (TreeMap<?, ?>) copies.get("treeMap");
+        assertThat(treeMapCopy.size() == 2 && treeMapCopy.get(1) == sharedCopy && treeMapCopy.get(2) != treeMap.get(2), "TreeMap entries");
+        assertThat(((EnumMap<?, ?>) copies.get("enumMap")).get(Shelf.UPPER) == sharedCopy, "EnumMap value object reference");
+        assertThat(copies.get("enumSet") != structures.get("enumSet") && copies.get("enumSet").equals(EnumSet.of(Shelf.LOWER)), "EnumSet copy");
+        List<?> unmodifiableCopy = (List<?>) copies.get("unmodifiableList");
+        assertThat(unmodifiableCopy.get(0) == sharedCopy, "unmodifiable list element object reference");
+        assertThat(isUnmodifiable(unmodifiableCopy), "unmodifiable list copy stays unmodifiable");
+        List<?> immutableCopy = (List<?>) copies.get("immutableList");
+        assertThat(immutableCopy.get(0) == sharedCopy && isUnmodifiable(immutableCopy), "immutable list copy");
+        assertThat(immutableCopy.getClass() == structures.get("immutableList").getClass(), "immutable list class");
+        assertThat(rejectsNull(immutableCopy), "immutable list copy rejects null");
+        Map<?, ?> immutableMapCopy = (Map<?, ?>) copies.get("immutableMap");
+        assertThat(immutableMapCopy.getClass() == structures.get("immutableMap").getClass() && immutableMapCopy.get("shared") == sharedCopy, "immutable map copy");
+        List<?> streamListCopy = (List<?>) copies.get("streamList");
+        assertThat(streamListCopy.get(0) == sharedCopy && streamListCopy.get(1) == null && !rejectsNull(streamListCopy), "Stream.toList() copy keeps null");
+    }
+
+    private static boolean rejectsNull(List<?> list) {
+        try {
+            list.contains(null);
+            return false;
+        } catch (NullPointerException e) {
+            return true;
+        }
+    }
+
+    // Concurrent structures are copied from consistent snapshot of their elements
+    private static void assertConcurrentCollectionsCopy(DeepCopyModule copyModule) throws Exception {
+        Node shared = new Node(1);
+        Map<String, Object> structures = new LinkedHashMap<>();
+        structures.put("array", new Object[]{shared});
+        structures.put("concurrentHashMap", new ConcurrentHashMap<>(Map.of("shared", shared)));
+        structures.put("concurrentSkipListMap", new ConcurrentSkipListMap<>(Map.of(TimeUnit.SECONDS, shared)));
+        structures.put("copyOnWriteArrayList", new CopyOnWriteArrayList<>(List.of(shared)));
+        structures.put("atomicReference", new AtomicReference<>(shared));
+
+        Map<String, Object> copies = copyModule.deepCopy(structures);
+        Node sharedCopy = (Node) ((Object[]) copies.get("array"))[0];
+        assertThat(sharedCopy != shared, "concurrent structure element copy");
+        assertThat(copies.get("concurrentHashMap") instanceof ConcurrentHashMap<?, ?> map && map.get("shared") == sharedCopy, "ConcurrentHashMap value object reference");
+        assertThat(copies.get("concurrentSkipListMap") instanceof ConcurrentSkipListMap<?, ?> map && map.get(TimeUnit.SECONDS) == sharedCopy, "ConcurrentSkipListMap value object reference");
+        assertThat(copies.get("copyOnWriteArrayList") instanceof CopyOnWriteArrayList<?> list && list.get(0) == sharedCopy, "CopyOnWriteArrayList element object reference");
+        assertThat(copies.get("atomicReference") != structures.get("atomicReference")
+                && ((AtomicReference<?>) copies.get("atomicReference")).get() == sharedCopy, "AtomicReference value object reference");
+    }
+
+    private static boolean isUnmodifiable(List<?> list) {
+        try {
+            list.clear();
+            return false;
+        } catch (UnsupportedOperationException e) {
+            return true;
+        }
+    }
+
+    private static void assertPerObjectPluginAndFailingConstructor() throws Exception {
+        var ticketModule = DeepCopyModule.builder()
+                .registerCopyPlugin(new VoidTicketPlugin(), 1)
+                .build();
+        List<Ticket> tickets = new ArrayList<>(List.of(new Ticket("A1"), new Ticket("VOID"), new Ticket("A2")));
+        for (int i = 0; i < 2; i++) {
+            List<Ticket> copies = ticketModule.deepCopy(tickets);
+            assertThat(copies.get(0) != tickets.get(0) && copies.get(0).code.equals("A1"), "copy by first constructor when no-arg one throws");
+            assertThat(copies.get(1) == tickets.get(1), "per-object plugin support");
+            assertThat(copies.get(2) != tickets.get(2) && copies.get(2).code.equals("A2"), "copy of object not supported by per-object plugin");
+        }
+    }
+
+    // Same settings as demo module above, which client graph needs
+    private static DeepCopyModule.Builder clientModuleBuilder() {
+        return DeepCopyModule.builder()
+                .registerClassInstanceSupplier(ManExtended.class, () -> new ManExtended("", 1, null))
+                .registerWrapperClassPredicate(cls -> Collections.emptyList().getClass().equals(cls))
+                .registerCopyPlugin(new ArraysArrayListCopyPlugin(), 1);
+    }
+
+    private record Order(String id, List<String> items) {
+        Order {
+            items = List.copyOf(items);
+        }
+    }
+
+    // Record is constructed once copies of its components are filled, so compact constructor sees their content
+    private static void assertCompactConstructorCopy(DeepCopyModule copyModule) throws Exception {
+        Order order = new Order("1", new ArrayList<>(List.of("book", "pen")));
+        Map<String, Object> orders = new HashMap<>(Map.of("first", order, "all", new Object[]{order}));
+        Map<String, Object> ordersCopy = copyModule.deepCopy(orders);
+        Order orderCopy = (Order) ordersCopy.get("first");
+        assertThat(orderCopy != order && orderCopy.items().equals(order.items()), "compact constructor of record copy");
+        assertThat(((Object[]) ordersCopy.get("all"))[0] == orderCopy, "record copy object reference");
+        assertThat(copyModule.compile(orders).newInstance().get("first").equals(order), "compact constructor of compiled record copy");
+    }
+
+    // Statistics are counted per copy, and the same statistics are read through MXBean
+    private static void assertStatistics(ManExtended client) throws Exception {
+        DeepCopyModule instrumentedModule = clientModuleBuilder()
+                .collectStatistics(true)
+                .build();
+        instrumentedModule.deepCopy(client);
+        instrumentedModule.deepCopyAll(List.of(client, client));
+        CopyStatistics statistics = instrumentedModule.statistics();
+        assertThat(statistics.copies() == 2 && statistics.copyToContextNanos() > 0, "statistics copies");
+        assertThat(statistics.copiedObjects().get(ManExtended.class.getName()) >= 2, "statistics copied objects");
+        assertThat(statistics.sharedObjects().get(String.class.getName()) > 0, "statistics shared objects");
+        assertThat(!statistics.pluginHits().isEmpty() && statistics.maxDepth() > 0, "statistics plugin hits and depth");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = instrumentedModule.registerStatisticsMXBean("client");
+        try {
+            assertThat(server.getAttribute(name, "Copies").equals(2L), "MXBean copies");
+            server.invoke(name, "reset", null, null);
+            assertThat(instrumentedModule.statistics().copies() == 0, "statistics reset through MXBean");
+        } finally {
+            server.unregisterMBean(name);
+        }
+        try {
+            clientModuleBuilder().build().statistics();
+            assertThat(false, "statistics of module not collecting them");
+        } catch (IllegalStateException expected) {
+            // Statistics are disabled by default
+        }
+    }
+
+    private static void assertFieldRulesAndMaxDepth(ManExtended client) throws Exception {
+        var ruledModule = clientModuleBuilder()
+                .excludeField(ManExtended.class, "bookRatings")
+                .shareField(ManExtended.class, "favoriteAuthors")
+                .build();
+        ManExtended copy = ruledModule.deepCopy(client);
+        assertThat(copy.getBookRatings() == null, "excluded bookRatings");
+        assertThat(copy.getFavoriteAuthors() == client.getFavoriteAuthors(), "shared favoriteAuthors");
+        assertThat(copy.getRelatives() != client.getRelatives() && copy.getRelatives().contains(copy), "relatives besides field rules");
+
+        ManExtended shallowCopy = clientModuleBuilder().maxDepth(0).build().deepCopy(client);
+        assertThat(shallowCopy != client && shallowCopy.getRelatives() == client.getRelatives(), "shallow copy of zero max depth");
+    }
+
+    // Node reachable at depth 2 and at depth 3 is copied with max depth 2, whatever path copy reaches it through first
+    private static void assertShortestPathDepth() throws Exception {
+        Node deep = new Node(4);
+        Node shared = new Node(3);
+        shared.next = deep;
+        Node first = new Node(1);
+        first.next = shared;
+        Node second = new Node(2);
+        second.next = new Node(21);
+        second.next.next = shared;
+        Object[] root = {first, second};
+        DeepCopyModule depthLimitedModule = DeepCopyModule.builder().maxDepth(2).build();
+        List<Object[]> copies = List.of(depthLimitedModule.deepCopy(root), depthLimitedModule.compile(root).newInstance(),
+                depthLimitedModule.incrementalSnapshots(root).snapshot());
+        for (Object[] copy : copies) {
+            Node sharedCopy = ((Node) copy[0]).next;
+            assertThat(sharedCopy != shared && sharedCopy.value == shared.value, "node copied at the shortest path depth");
+            assertThat(((Node) copy[1]).next.next == sharedCopy, "node copy referenced by the longer path");
+            assertThat(sharedCopy.next == deep, "node below depth limit shared");
+        }
+    }
+
+    // Objects below depth limit are shared with source by incremental snapshots as well as by plain copy
+    private static void assertDepthLimitedSnapshots(ManExtended client) throws Exception {
+        var depthLimitedModule = clientModuleBuilder()
+                .maxDepth(1)
+                .build();
+        var snapshots = depthLimitedModule.incrementalSnapshots(client);
+        for (int i = 0; i < 2; i++) {
+            ManExtended snapshot = snapshots.snapshot();
+            assertThat(snapshot != client && snapshot.getFavoriteAuthors() != client.getFavoriteAuthors(), "snapshot reference");
+            assertThat(snapshot.getFavoriteAuthors().size() == client.getFavoriteAuthors().size(), "snapshot favoriteAuthors size");
+            forEachElementPair(client.getFavoriteAuthors(), snapshot.getFavoriteAuthors(), (a1, a2) -> assertThat(a1 == a2, "snapshot favoriteAuthors elements below depth limit"));
+            assertThat(snapshot.getRelatives().contains(client), "snapshot relatives elements below depth limit");
+        }
+    }
+
+    private static final String COPYABLE_SOURCE = """
+            package generated;
+
+            @deepcopy.DeepCopyable
+            public class Account {
+                public static int setterCalls;
+                private String owner;
+                public int[] history;
+
+                public String getOwner() {
+                    return owner;
+                }
+
+                public void setOwner(String owner) {
+                    this.owner = owner;
+                    setterCalls++;
+                }
+            }
+            """;
+
+    private static final String UNCOPYABLE_SOURCE = """
+            package generated;
+
+            @deepcopy.DeepCopyable
+            public class Sealed {
+                private String code;
+            }
+            """;
+
+    // Processor is found by javac through its service file, and copier it generates is found by module through ServiceLoader
+    private static void assertGeneratedCopier() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            // Runtime without compiler
+            return;
+        }
+        Path directory = Files.createTempDirectory("deepcopyable");
+        try {
+            Path sourceDirectory = Files.createDirectories(directory.resolve("generated"));
+            Path outputDirectory = Files.createDirectories(directory.resolve("classes"));
+            Path source = Files.writeString(sourceDirectory.resolve("Account.java"), COPYABLE_SOURCE);
+            Path uncopyableSource = Files.writeString(sourceDirectory.resolve("Sealed.java"), UNCOPYABLE_SOURCE);
+            String classPath = System.getProperty("java.class.path");
+            assertThat(compiler.run(null, null, OutputStream.nullOutputStream(), "-proc:full", "-cp", classPath,
+                    "-d", outputDirectory.toString(), uncopyableSource.toString()) != 0, "processor rejects private field without accessors");
+            assertThat(compiler.run(null, null, null, "-proc:full", "-cp", classPath,
+                    "-d", outputDirectory.toString(), source.toString()) == 0, "compilation of @DeepCopyable class");
+
+            Thread thread = Thread.currentThread();
+            ClassLoader contextClassLoader = thread.getContextClassLoader();
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{outputDirectory.toUri().toURL()}, DeepCloneMain.class.getClassLoader())) {
+                thread.setContextClassLoader(loader);
+                Class<?> accountClass = loader.loadClass("generated.Account");
+                Object account = accountClass.getConstructor().newInstance();
+                accountClass.getMethod("setOwner", String.class).invoke(account, "Ann");
+                accountClass.getField("history").set(account, new int[]{1, 2});
+                accountClass.getField("setterCalls").setInt(null, 0);
+
+                Object copy = DeepCopyModule.builder().build().deepCopy(account);
+                assertThat(copy != account && "Ann".equals(accountClass.getMethod("getOwner").invoke(copy)), "generated copier private field");
+                int[] history = (int[]) accountClass.getField("history").get(copy);
+                assertThat(history != accountClass.getField("history").get(account) && history[1] == 2, "generated copier field");
+                assertThat(accountClass.getField("setterCalls").getInt(null) == 1, "generated copier sets private field by setter");
+            } finally {
+                thread.setContextClassLoader(contextClassLoader);
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
     }
 
     private static void assertManCopy(ManExtended man, ManExtended copy, int recursiveLevel) {
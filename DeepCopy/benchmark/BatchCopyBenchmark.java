@@ -0,0 +1,96 @@
+package benchmark;
+
+import deepcopy.DeepCopyModule;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares throughput of copying many small DTOs with separate deepCopy() calls and with single deepCopyAll() call.
+ * Plain main() with warm-up rounds, run it with fixed heap to get stable numbers, e.g. -Xms1g -Xmx1g.
+ */
+public class BatchCopyBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+    private static final long ROUND_NANOS = 200_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        DeepCopyModule copyModule = DeepCopyModule.builder().build();
+        List<OrderLine> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new OrderLine(i, "SKU-" + i, new BigDecimal("9.99"), LocalDate.of(2024, 1, 1 + i % 28), List.of("tag" + i % 5)));
+        }
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            perCallRound(copyModule, batch);
+            batchedRound(copyModule, batch);
+        }
+
+        double perCall = 0;
+        double batched = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            perCall += perCallRound(copyModule, batch);
+            batched += batchedRound(copyModule, batch);
+        }
+        System.out.printf("deepCopy() per object:  %,.0f objects/s%n", perCall / MEASURED_ROUNDS);
+        System.out.printf("deepCopyAll() of batch: %,.0f objects/s%n", batched / MEASURED_ROUNDS);
+    }
+
+    private static double perCallRound(DeepCopyModule copyModule, List<OrderLine> batch) throws Exception {
+        long copied = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (OrderLine line : batch) {
+                consume(copyModule.deepCopy(line));
+            }
+            copied += batch.size();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return copied * 1e9 / elapsed;
+    }
+
+    private static double batchedRound(DeepCopyModule copyModule, List<OrderLine> batch) throws Exception {
+        long copied = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            consume(copyModule.deepCopyAll(batch));
+            copied += batch.size();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return copied * 1e9 / elapsed;
+    }
+
+    private static int sink;
+
+    private static void consume(Object copy) {
+        sink += System.identityHashCode(copy) & 1;
+    }
+
+    static class OrderLine {
+        private long id;
+        private String sku;
+        private BigDecimal price;
+        private LocalDate deliveryDate;
+        private List<String> tags;
+        private int quantity;
+        private boolean gift;
+
+        private OrderLine() {
+        }
+
+        OrderLine(long id, String sku, BigDecimal price, LocalDate deliveryDate, List<String> tags) {
+            this.id = id;
+            this.sku = sku;
+            this.price = price;
+            this.deliveryDate = deliveryDate;
+            this.tags = new ArrayList<>(tags);
+            this.quantity = 1;
+        }
+    }
+}
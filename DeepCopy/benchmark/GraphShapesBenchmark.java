@@ -0,0 +1,385 @@
+package benchmark;
+
+import deepcopy.CompiledPrototype;
+import deepcopy.DeepCopyModule;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Throughput and allocation of copying graphs of different shapes, compared with hand-written copy of the same graph.
+ * Each shape is copied by deepCopy(), by compiled prototype and by hand, allocation is measured with per-thread
+ * allocated bytes counter of HotSpot, so bytes per copied object include context, worklists and other copy overhead.
+ * Plain main() with warm-up rounds as the library is J2SE only, run it with fixed heap to get stable numbers, e.g.
+ * -Xms2g -Xmx2g. Arguments: graph size (1000 by default) and names of shapes to run (all by default).
+ */
+public class GraphShapesBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 10;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final long ROUND_NANOS = 200_000_000L;
+
+    enum Shape {
+        // ArrayList of DTOs with many primitive and value fields
+        WIDE_DTOS(GraphShapesBenchmark::wideDtos, GraphShapesBenchmark::copyWideDtos),
+        // Linked chain as deep as graph size
+        DEEP_CHAIN(GraphShapesBenchmark::deepChain, GraphShapesBenchmark::copyDeepChain),
+        // People referencing each other through relatives sets and referral arrays
+        CYCLIC(GraphShapesBenchmark::cyclicPeople, GraphShapesBenchmark::copyCyclicPeople),
+        // Big HashMap of items and TreeSet of their names
+        LARGE_COLLECTIONS(GraphShapesBenchmark::largeCollections, GraphShapesBenchmark::copyLargeCollections),
+        // Rows of book ratings and counters
+        PRIMITIVE_ARRAYS(GraphShapesBenchmark::primitiveArrays, GraphShapesBenchmark::copyPrimitiveArrays);
+
+        private final GraphGenerator generator;
+        private final UnaryOperator<Object> handWrittenCopy;
+
+        Shape(GraphGenerator generator, UnaryOperator<Object> handWrittenCopy) {
+            this.generator = generator;
+            this.handWrittenCopy = handWrittenCopy;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            shapes.add(Shape.valueOf(args[i]));
+        }
+        if (shapes.isEmpty()) {
+            shapes.addAll(List.of(Shape.values()));
+        }
+
+        DeepCopyModule copyModule = DeepCopyModule.builder().build();
+        System.out.printf("%-18s %-18s %16s %14s %12s%n", "shape", "copy", "objects/s", "bytes/object", "slowdown");
+        for (Shape shape : shapes) {
+            Graph graph = shape.generator.generate(size);
+            CompiledPrototype<Object> prototype = copyModule.compile(graph.root());
+            Measurement manual = measure(graph, shape.handWrittenCopy::apply);
+            Measurement deepCopy = measure(graph, copyModule::deepCopy);
+            Measurement compiled = measure(graph, root -> prototype.newInstance());
+            print(shape, "hand-written", manual, manual);
+            print(shape, "deepCopy()", deepCopy, manual);
+            print(shape, "compiled", compiled, manual);
+        }
+    }
+
+    private static void print(Shape shape, String copy, Measurement measurement, Measurement manual) {
+        String bytes = measurement.bytesPerObject() >= 0 ? String.format("%,.1f", measurement.bytesPerObject()) : "n/a";
+        System.out.printf("%-18s %-18s %,16.0f %14s %11.2fx%n", shape, copy, measurement.objectsPerSecond(), bytes,
+                manual.objectsPerSecond() / measurement.objectsPerSecond());
+    }
+
+    private static Measurement measure(Graph graph, Copy copy) throws Exception {
+        if (copy.copy(graph.root()) == graph.root()) {
+            throw new IllegalStateException("Graph root isn't copied");
+        }
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            round(graph, copy);
+        }
+        double objectsPerSecond = 0;
+        double bytesPerObject = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            Measurement round = round(graph, copy);
+            objectsPerSecond += round.objectsPerSecond();
+            bytesPerObject += round.bytesPerObject();
+        }
+        return new Measurement(objectsPerSecond / MEASURED_ROUNDS, bytesPerObject / MEASURED_ROUNDS);
+    }
+
+    private static Measurement round(Graph graph, Copy copy) throws Exception {
+        long copies = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            consume(copy.copy(graph.root()));
+            copies++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        long allocated = allocatedBytes() - allocatedBefore;
+        long copiedObjects = copies * graph.objectsCount();
+        return new Measurement(copiedObjects * 1e9 / elapsed, allocatedBefore >= 0 ? (double) allocated / copiedObjects : -1);
+    }
+
+    /**
+     * @return bytes allocated by current thread so far, or -1 if JVM doesn't count them
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadBean && threadBean.isThreadAllocatedMemoryEnabled()) {
+            return threadBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static int sink;
+
+    private static void consume(Object copy) {
+        sink += System.identityHashCode(copy) & 1;
+    }
+
+    @FunctionalInterface
+    private interface GraphGenerator {
+        Graph generate(int size);
+    }
+
+    @FunctionalInterface
+    private interface Copy {
+        Object copy(Object root) throws Exception;
+    }
+
+    /**
+     * @param objectsCount number of objects copy of graph consists of, shared immutable objects are not counted
+     */
+    private record Graph(Object root, int objectsCount) {}
+
+    private record Measurement(double objectsPerSecond, double bytesPerObject) {}
+
+    // Wide DTOs
+
+    static class WideDto {
+        private long id;
+        private int version;
+        private int quantity;
+        private short priority;
+        private byte flags;
+        private boolean active;
+        private boolean gift;
+        private char grade;
+        private double weight;
+        private double volume;
+        private float discount;
+        private long createdMillis;
+        private String sku;
+        private String title;
+        private String description;
+        private BigDecimal price;
+        private LocalDate deliveryDate;
+        private List<String> tags;
+    }
+
+    private static Graph wideDtos(int size) {
+        List<WideDto> dtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            WideDto dto = new WideDto();
+            dto.id = i;
+            dto.version = 1;
+            dto.quantity = i % 10;
+            dto.active = true;
+            dto.grade = 'A';
+            dto.weight = i * 0.5;
+            dto.sku = "SKU-" + i;
+            dto.title = "Item " + i;
+            dto.description = "Description of item " + i;
+            dto.price = BigDecimal.valueOf(i, 2);
+            dto.deliveryDate = LocalDate.of(2024, 1, 1 + i % 28);
+            dto.tags = new ArrayList<>(List.of("tag" + i % 5, "sale"));
+            dtos.add(dto);
+        }
+        return new Graph(dtos, 1 + size * 2);
+    }
+
+    private static Object copyWideDtos(Object root) {
+        List<WideDto> dtos = (List<WideDto>) root;
+        List<WideDto> copies = new ArrayList<>(dtos.size());
+        for (WideDto dto : dtos) {
+            WideDto copy = new WideDto();
+            copy.id = dto.id;
+            copy.version = dto.version;
+            copy.quantity = dto.quantity;
+            copy.priority = dto.priority;
+            copy.flags = dto.flags;
+            copy.active = dto.active;
+            copy.gift = dto.gift;
+            copy.grade = dto.grade;
+            copy.weight = dto.weight;
+            copy.volume = dto.volume;
+            copy.discount = dto.discount;
+            copy.createdMillis = dto.createdMillis;
+            copy.sku = dto.sku;
+            copy.title = dto.title;
+            copy.description = dto.description;
+            copy.price = dto.price;
+            copy.deliveryDate = dto.deliveryDate;
+            copy.tags = new ArrayList<>(dto.tags);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    // Deep chain
+
+    static class ChainNode {
+        private int value;
+        private String label;
+        private ChainNode next;
+    }
+
+    private static Graph deepChain(int size) {
+        ChainNode head = null;
+        for (int i = 0; i < size; i++) {
+            ChainNode node = new ChainNode();
+            node.value = i;
+            node.label = "node";
+            node.next = head;
+            head = node;
+        }
+        return new Graph(head, size);
+    }
+
+    private static Object copyDeepChain(Object root) {
+        ChainNode head = null;
+        ChainNode tail = null;
+        for (ChainNode node = (ChainNode) root; node != null; node = node.next) {
+            ChainNode copy = new ChainNode();
+            copy.value = node.value;
+            copy.label = node.label;
+            if (tail == null) {
+                head = copy;
+            } else {
+                tail.next = copy;
+            }
+            tail = copy;
+        }
+        return head;
+    }
+
+    // Cyclic people
+
+    static class Person {
+        private String name;
+        private int age;
+        private Set<Person> relatives;
+        private Person[] referrals;
+    }
+
+    private static final int FAMILY_SIZE = 8;
+
+    private static Graph cyclicPeople(int size) {
+        List<Person> people = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Person person = new Person();
+            person.name = "Person " + i;
+            person.age = 20 + i % 50;
+            people.add(person);
+        }
+        for (int i = 0; i < size; i++) {
+            Person person = people.get(i);
+            // Identity based hashing, so relatives sets don't depend on copy order
+            person.relatives = new HashSet<>();
+            int family = i - i % FAMILY_SIZE;
+            for (int j = family; j < Math.min(family + FAMILY_SIZE, size); j++) {
+                if (j != i) {
+                    person.relatives.add(people.get(j));
+                }
+            }
+            person.referrals = new Person[]{people.get((i + 1) % size), people.get((i + size / 2) % size)};
+        }
+        return new Graph(people, 1 + size * 3);
+    }
+
+    private static Object copyCyclicPeople(Object root) {
+        List<Person> people = (List<Person>) root;
+        Map<Person, Person> copies = new IdentityHashMap<>(people.size() * 2);
+        for (Person person : people) {
+            Person copy = new Person();
+            copy.name = person.name;
+            copy.age = person.age;
+            copies.put(person, copy);
+        }
+        List<Person> copiedPeople = new ArrayList<>(people.size());
+        for (Person person : people) {
+            Person copy = copies.get(person);
+            copy.relatives = new HashSet<>();
+            for (Person relative : person.relatives) {
+                copy.relatives.add(copies.get(relative));
+            }
+            copy.referrals = new Person[person.referrals.length];
+            for (int i = 0; i < person.referrals.length; i++) {
+                copy.referrals[i] = copies.get(person.referrals[i]);
+            }
+            copiedPeople.add(copy);
+        }
+        return copiedPeople;
+    }
+
+    // Large collections
+
+    static class CatalogItem {
+        private long id;
+        private String name;
+        private double price;
+    }
+
+    static class Catalog {
+        private HashMap<String, CatalogItem> itemsByName;
+        private TreeSet<String> sortedNames;
+    }
+
+    private static Graph largeCollections(int size) {
+        Catalog catalog = new Catalog();
+        catalog.itemsByName = new HashMap<>();
+        catalog.sortedNames = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            CatalogItem item = new CatalogItem();
+            item.id = i;
+            item.name = "item-" + i;
+            item.price = i * 1.25;
+            catalog.itemsByName.put(item.name, item);
+            catalog.sortedNames.add(item.name);
+        }
+        return new Graph(catalog, 3 + size);
+    }
+
+    private static Object copyLargeCollections(Object root) {
+        Catalog catalog = (Catalog) root;
+        Catalog copy = new Catalog();
+        copy.itemsByName = new HashMap<>(catalog.itemsByName.size() * 4 / 3 + 1);
+        for (Map.Entry<String, CatalogItem> entry : catalog.itemsByName.entrySet()) {
+            CatalogItem item = entry.getValue();
+            CatalogItem itemCopy = new CatalogItem();
+            itemCopy.id = item.id;
+            itemCopy.name = item.name;
+            itemCopy.price = item.price;
+            copy.itemsByName.put(entry.getKey(), itemCopy);
+        }
+        copy.sortedNames = new TreeSet<>(catalog.sortedNames);
+        return copy;
+    }
+
+    // Primitive arrays
+
+    static class Ratings {
+        private double[][] bookRatings;
+        private int[] readCounts;
+    }
+
+    private static final int RATINGS_PER_BOOK = 16;
+
+    private static Graph primitiveArrays(int size) {
+        Ratings ratings = new Ratings();
+        ratings.bookRatings = new double[size][RATINGS_PER_BOOK];
+        ratings.readCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < RATINGS_PER_BOOK; j++) {
+                ratings.bookRatings[i][j] = (i + j) % 5 + 0.5;
+            }
+            ratings.readCounts[i] = i;
+        }
+        return new Graph(ratings, 3 + size);
+    }
+
+    private static Object copyPrimitiveArrays(Object root) {
+        Ratings ratings = (Ratings) root;
+        Ratings copy = new Ratings();
+        copy.bookRatings = new double[ratings.bookRatings.length][];
+        for (int i = 0; i < ratings.bookRatings.length; i++) {
+            copy.bookRatings[i] = ratings.bookRatings[i].clone();
+        }
+        copy.readCounts = ratings.readCounts.clone();
+        return copy;
+    }
+}
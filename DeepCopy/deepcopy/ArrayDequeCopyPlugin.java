@@ -0,0 +1,59 @@
+package deepcopy;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Copies ArrayDeque into deque of source size, so it's filled without growing.
+ */
+public class ArrayDequeCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == ArrayDeque.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        ArrayDeque<?> srcDeque = (ArrayDeque<?>) src;
+        context.putCopyInstanceFor(src, new ArrayDeque<>(srcDeque.size()));
+        for (Object value : srcDeque) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean reuseCopyObject(Object src, Object previousCopy, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        if (previousCopy.getClass() != ArrayDeque.class) {
+            return false;
+        }
+        ArrayDeque<?> srcDeque = (ArrayDeque<?>) src;
+        ArrayDeque<?> previousDeque = (ArrayDeque<?>) previousCopy;
+        Iterator<?> previousValues = previousDeque.iterator();
+        for (Object value : srcDeque) {
+            if (!previousValues.hasNext()) {
+                break;
+            }
+            context.registerReusableCopy(value, previousValues.next());
+        }
+        previousDeque.clear();
+        context.putCopyInstanceFor(src, previousDeque);
+        for (Object value : srcDeque) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setReferenceFields(Object src, CopyObjectContext context) {
+        ArrayDeque<?> srcDeque = (ArrayDeque<?>) src;
+        ArrayDeque<Object> copyDeque = (ArrayDeque<Object>) context.getCopyInstanceFor(srcDeque);
+        for (Object value : srcDeque) {
+            copyDeque.addLast(context.getCopyInstanceFor(value));
+        }
+        return true;
+    }
+
+}
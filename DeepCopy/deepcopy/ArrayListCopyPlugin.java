@@ -0,0 +1,57 @@
+package deepcopy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Copies ArrayList into list of source size, so it's filled in single pass over source without growing.
+ */
+public class ArrayListCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == ArrayList.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        List<?> srcList = (List<?>) src;
+        context.putCopyInstanceFor(src, new ArrayList<>(srcList.size()));
+        for (Object value : srcList) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean reuseCopyObject(Object src, Object previousCopy, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        if (previousCopy.getClass() != ArrayList.class) {
+            return false;
+        }
+        List<?> srcList = (List<?>) src;
+        ArrayList<?> previousList = (ArrayList<?>) previousCopy;
+        int pairedCount = Math.min(srcList.size(), previousList.size());
+        for (int i = 0; i < pairedCount; i++) {
+            context.registerReusableCopy(srcList.get(i), previousList.get(i));
+        }
+        previousList.clear();
+        previousList.ensureCapacity(srcList.size());
+        context.putCopyInstanceFor(src, previousList);
+        for (Object value : srcList) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setReferenceFields(Object src, CopyObjectContext context) {
+        List<?> srcList = (List<?>) src;
+        List<Object> copyList = (List<Object>) context.getCopyInstanceFor(srcList);
+        for (int i = 0; i < srcList.size(); i++) {
+            copyList.add(context.getCopyInstanceFor(srcList.get(i)));
+        }
+        return true;
+    }
+
+}
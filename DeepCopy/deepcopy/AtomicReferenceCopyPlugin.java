@@ -0,0 +1,38 @@
+package deepcopy;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Copies AtomicReference by its value read once, so copy refers to copy of the same object that was instantiated,
+ * even if reference is changed by other threads during copy.
+ */
+public class AtomicReferenceCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == AtomicReference.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        Object value = ((AtomicReference<?>) src).get();
+        AtomicReference<Object> copy = new AtomicReference<>();
+        context.putCopyInstanceFor(src, copy);
+        // Null value is not kept, copy already refers to null
+        if (value != null && context.getCopyInstanceFor(src) == copy) {
+            context.putPluginData(src, value);
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setReferenceFields(Object src, CopyObjectContext context) {
+        Object value = context.getPluginData(src);
+        if (value != null) {
+            ((AtomicReference<Object>) context.getCopyInstanceFor(src)).set(context.getCopyInstanceFor(value));
+        }
+        return true;
+    }
+}
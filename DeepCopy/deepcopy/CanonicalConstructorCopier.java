@@ -0,0 +1,175 @@
+package deepcopy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * Copy of record, or of class registered for copy by constructor, made by single canonical constructor call
+ * with copies of its components. Canonical constructor of class takes all its instance fields in declaration order, superclasses must have no instance fields.
+ * Field rules apply to components: shared ones are passed as is, excluded ones get default value.
+ *
+ */
+final class CanonicalConstructorCopier implements ConstructorCopier {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final MethodHandle constructor;
+    private final MethodHandle[] getters;
+    // Per component: copied through references, or passed as is (primitive or shared value)
+    private final boolean[] referenceComponents;
+    // Per component: excluded ones are never read, their default value is passed
+    private final boolean[] excludedComponents;
+    private final Object[] excludedDefaults;
+    private final boolean[] primitiveComponents;
+
+    private CanonicalConstructorCopier(MethodHandle constructor, MethodHandle[] getters, boolean[] referenceComponents, boolean[] excludedComponents, Object[] excludedDefaults, boolean[] primitiveComponents) {
+        this.constructor = constructor;
+        this.getters = getters;
+        this.referenceComponents = referenceComponents;
+        this.excludedComponents = excludedComponents;
+        this.excludedDefaults = excludedDefaults;
+        this.primitiveComponents = primitiveComponents;
+    }
+
+    static CanonicalConstructorCopier of(Class<?> type, FieldRules fieldRules) throws IllegalAccessException {
+        List<Field> fields = componentFields(type);
+        Constructor<?> canonicalConstructor = canonicalConstructor(type, fields);
+        canonicalConstructor.setAccessible(true);
+        MethodHandle constructor = LOOKUP.unreflectConstructor(canonicalConstructor)
+                .asSpreader(Object[].class, fields.size())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+
+        int count = fields.size();
+        MethodHandle[] getters = new MethodHandle[count];
+        boolean[] referenceComponents = new boolean[count];
+        boolean[] excludedComponents = new boolean[count];
+        Object[] excludedDefaults = new Object[count];
+        boolean[] primitiveComponents = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            Field field = fields.get(i);
+            field.setAccessible(true);
+            getters[i] = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+            FieldRules.Action action = fieldRules.actionFor(type, field);
+            primitiveComponents[i] = field.getType().isPrimitive();
+            referenceComponents[i] = action == FieldRules.Action.COPY && !field.getType().isPrimitive();
+            excludedComponents[i] = action == FieldRules.Action.EXCLUDE;
+            if (excludedComponents[i] && field.getType().isPrimitive()) {
+                try {
+                    excludedDefaults[i] = MethodHandles.zero(field.getType()).invoke();
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Can't get default value of " + field.getType(), e);
+                }
+            }
+        }
+        return new CanonicalConstructorCopier(constructor, getters, referenceComponents, excludedComponents, excludedDefaults, primitiveComponents);
+    }
+
+    /**
+     * Checks that class has canonical constructor, see class description.
+     *
+     * @throws IllegalArgumentException if it doesn't
+     */
+    static void checkCanonicalConstructor(Class<?> type) {
+        canonicalConstructor(type, componentFields(type));
+    }
+
+    private static List<Field> componentFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                try {
+                    fields.add(type.getDeclaredField(component.getName()));
+                } catch (NoSuchFieldException e) {
+                    throw new IllegalStateException("Record " + type.getName() + " has no field of component " + component.getName(), e);
+                }
+            }
+            return fields;
+        }
+        for (Class<?> cls = type.getSuperclass(); cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    throw new IllegalArgumentException("Class " + type.getName() + " can't be copied by constructor, its superclass "
+                            + cls.getName() + " has instance fields");
+                }
+            }
+        }
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static Constructor<?> canonicalConstructor(Class<?> type, List<Field> fields) {
+        Class<?>[] parameterTypes = fields.stream().map(Field::getType).toArray(Class<?>[]::new);
+        try {
+            return type.getDeclaredConstructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Class " + type.getName() + " has no constructor taking all its fields in declaration order", e);
+        }
+    }
+
+    @Override
+    public boolean isReference(int component) {
+        return referenceComponents[component];
+    }
+
+    /**
+     * Component values of src, excluded components have default values.
+     */
+    @Override
+    public Object[] components(Object src) {
+        Object[] components = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            components[i] = excludedComponents[i] ? excludedDefaults[i] : component(src, i);
+        }
+        return components;
+    }
+
+    private Object component(Object src, int component) {
+        try {
+            return getters[component].invokeExact(src);
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public boolean sameValue(Object src, Object copy, int component) {
+        if (excludedComponents[component]) {
+            return true;
+        }
+        Object srcValue = component(src, component);
+        Object copyValue = component(copy, component);
+        return srcValue == copyValue || (primitiveComponents[component] && srcValue.equals(copyValue));
+    }
+
+    @Override
+    public Object construct(Object src, Object[] components) {
+        try {
+            return constructor.invokeExact(components);
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    private static RuntimeException failure(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        // Handles don't declare checked exceptions, only constructor can throw them
+        return new IllegalStateException("Copy by constructor failed", cause);
+    }
+}
@@ -0,0 +1,261 @@
+package deepcopy;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ *
+ * Copy strategy of one class resolved once by {@link DeepCopyModule} and cached per class.
+ * Field accessors are collected up the whole class hierarchy and made accessible on first use only,
+ * because plugin-handled classes (JDK collections mostly) normally never need them.
+ *
+ */
+final class ClassCopyPlan {
+
+    enum Strategy {
+        CUSTOM_FUNCTION,
+        // Array of primitives or of final shared class, copied by System.arraycopy()
+        VALUE_ARRAY,
+        OBJECT_ARRAY,
+        // Wrapper or deeply immutable object, copied by reference
+        SHARED,
+        PLUGIN,
+        // Field by field copy, by generated copier if there is one
+        REFLECTIVE,
+        // Record, registered class or immutable collection, copied by constructor call with copies of components
+        CONSTRUCTOR
+    }
+
+    private final Class<?> type;
+    private final Strategy strategy;
+    private final UnaryOperator<Object> copyFunction;
+    private final DeepCopyModulePlugin[] plugins;
+    private final int copierSpecializationThreshold;
+    private final FieldRules fieldRules;
+    private final DeepCopier<Object> generatedCopier;
+    private FieldLayout fieldLayout;
+    private ConstructorCopier constructorCopier;
+    private Instantiation instantiation;
+    private CopyInstrumentation.ClassCounters counters;
+    private ObjectCopier copier;
+    private int copiesCount;
+
+    ClassCopyPlan(Class<?> type, Strategy strategy, UnaryOperator<Object> copyFunction, DeepCopyModulePlugin[] plugins, int copierSpecializationThreshold, FieldRules fieldRules, DeepCopier<Object> generatedCopier) {
+        this.type = type;
+        this.strategy = strategy;
+        this.copyFunction = copyFunction;
+        this.plugins = plugins;
+        this.copierSpecializationThreshold = copierSpecializationThreshold;
+        this.fieldRules = fieldRules;
+        this.generatedCopier = generatedCopier;
+        if (generatedCopier != null) {
+            this.copier = new GeneratedObjectCopier(generatedCopier);
+        }
+    }
+
+    Class<?> type() {
+        return type;
+    }
+
+    Strategy strategy() {
+        return strategy;
+    }
+
+    UnaryOperator<Object> copyFunction() {
+        return copyFunction;
+    }
+
+    DeepCopyModulePlugin[] plugins() {
+        return plugins;
+    }
+
+    /**
+     * Fields copied as is: primitive fields and shared reference fields.
+     */
+    FieldAccessor[] valueFields() throws IllegalAccessException {
+        return fieldLayout().valueFields();
+    }
+
+    /**
+     * Copier generated at build time for class, see {@link DeepCopyable}, or null.
+     */
+    DeepCopier<Object> generatedCopier() {
+        return generatedCopier;
+    }
+
+    FieldAccessor[] referenceFields() throws IllegalAccessException {
+        return fieldLayout().referenceFields();
+    }
+
+    /**
+     * Copier of object fields. Starts with field accessors loop and is replaced with {@link SpecializedCopier}
+     * once class is copied specialization threshold number of times, see {@link #countCopy()}.
+     */
+    ObjectCopier copier() throws IllegalAccessException {
+        ObjectCopier objectCopier = this.copier;
+        if (objectCopier == null) {
+            objectCopier = fieldLayout();
+            this.copier = objectCopier;
+        }
+        return objectCopier;
+    }
+
+    void countCopy() throws IllegalAccessException {
+        // Counter and copier are racy on purpose: missed increments or double specialization are harmless
+        if (generatedCopier == null && copierSpecializationThreshold > 0 && copiesCount < copierSpecializationThreshold && ++copiesCount == copierSpecializationThreshold) {
+            FieldLayout layout = fieldLayout();
+            try {
+                this.copier = SpecializedCopier.generate(layout.valueFields(), layout.referenceFields());
+            } catch (RuntimeException ignored) {
+                // In case handles can't be combined (any linkage issue) accessors loop is still valid
+            }
+        }
+    }
+
+    /**
+     * Statistics counters of class, set for instrumented module only.
+     */
+    CopyInstrumentation.ClassCounters counters() {
+        return counters;
+    }
+
+    void setCounters(CopyInstrumentation.ClassCounters counters) {
+        this.counters = counters;
+    }
+
+    ConstructorCopier constructorCopier() throws IllegalAccessException {
+        ConstructorCopier copier = this.constructorCopier;
+        if (copier == null) {
+            copier = ConstructorCopier.of(type, fieldRules);
+            this.constructorCopier = copier;
+        }
+        return copier;
+    }
+
+    /**
+     * Instantiates object by no-arg constructor, or by the first declared one with zero and null arguments if there is none
+     * or it fails. Constructor is resolved once, not on every instantiation, and the first failure of no-arg constructor
+     * switches instantiation to the first declared one for good.
+     */
+    Object newInstance() throws ReflectiveOperationException {
+        Instantiation objectInstantiation = this.instantiation;
+        if (objectInstantiation == null) {
+            objectInstantiation = Instantiation.of(type);
+            this.instantiation = objectInstantiation;
+        }
+        if (objectInstantiation.arguments().length == 0) {
+            try {
+                return objectInstantiation.constructor().newInstance();
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                objectInstantiation = Instantiation.firstDeclared(type);
+                this.instantiation = objectInstantiation;
+            }
+        }
+        return objectInstantiation.constructor().newInstance(objectInstantiation.arguments());
+    }
+
+    private FieldLayout fieldLayout() throws IllegalAccessException {
+        // Racy initialization is fine here: layout is immutable and resolves to the same fields on every thread
+        FieldLayout layout = this.fieldLayout;
+        if (layout == null) {
+            layout = FieldLayout.of(type, fieldRules);
+            this.fieldLayout = layout;
+        }
+        return layout;
+    }
+
+    private record Instantiation(
+            Constructor<?> constructor,
+            Object[] arguments
+    ) {
+
+        private static Instantiation of(Class<?> type) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return new Instantiation(constructor, new Object[0]);
+            } catch (NoSuchMethodException e) {
+                return firstDeclared(type);
+            }
+        }
+
+        private static Instantiation firstDeclared(Class<?> type) {
+            Constructor<?> constructor = type.getDeclaredConstructors()[0];
+            constructor.setAccessible(true);
+            Class<?>[] paramClasses = constructor.getParameterTypes();
+            Object[] params = new Object[paramClasses.length];
+            for (int i = 0; i < paramClasses.length; i++) {
+                if (paramClasses[i].isPrimitive()) {
+                    if (paramClasses[i].equals(Boolean.TYPE)) params[i] = false;
+                    else params[i] = (byte) 0b0;
+                } else {
+                    params[i] = null;
+                }
+            }
+            return new Instantiation(constructor, params);
+        }
+    }
+
+    private record GeneratedObjectCopier(
+            DeepCopier<Object> generatedCopier
+    ) implements ObjectCopier {
+
+        @Override
+        public void copyValueFields(Object src, Object copy) {
+            generatedCopier.copyValueFields(src, copy);
+        }
+
+        @Override
+        public void copyReferenceFields(Object src, Object copy, UnaryOperator<Object> references) {
+            generatedCopier.copyReferenceFields(src, copy, references);
+        }
+    }
+
+    private record FieldLayout(
+            FieldAccessor[] valueFields,
+            FieldAccessor[] referenceFields
+    ) implements ObjectCopier {
+
+        @Override
+        public void copyValueFields(Object src, Object copy) {
+            for (FieldAccessor field : valueFields) {
+                field.copy(src, copy);
+            }
+        }
+
+        @Override
+        public void copyReferenceFields(Object src, Object copy, UnaryOperator<Object> references) {
+            for (FieldAccessor field : referenceFields) {
+                field.set(copy, references.apply(field.get(src)));
+            }
+        }
+
+        private static FieldLayout of(Class<?> type, FieldRules fieldRules) throws IllegalAccessException {
+            List<FieldAccessor> valueFields = new ArrayList<>();
+            List<FieldAccessor> referenceFields = new ArrayList<>();
+            for (Class<?> cls = type; cls != Object.class; cls = cls.getSuperclass()) {
+                for (Field field : cls.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    FieldRules.Action action = fieldRules.actionFor(type, field);
+                    if (action == FieldRules.Action.EXCLUDE) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    if (field.getType().isPrimitive() || action == FieldRules.Action.SHARE) {
+                        valueFields.add(FieldAccessor.of(field));
+                    } else {
+                        referenceFields.add(FieldAccessor.of(field));
+                    }
+                }
+            }
+            return new FieldLayout(valueFields.toArray(FieldAccessor[]::new), referenceFields.toArray(FieldAccessor[]::new));
+        }
+    }
+}
@@ -0,0 +1,579 @@
+package deepcopy;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ *
+ * Prototype graph recorded once by {@link DeepCopyModule#compile} into flat instruction tape, so each new instance
+ * is made by replaying tape: allocate nodes, set their fields to constants or other nodes, fill plugin-handled
+ * structures. Objects copied by constructor are constructed once their components are complete, as in ordinary copy
+ * (see {@link PendingConstructions}), that order is found on compilation too.
+ * Graph isn't discovered again, and identity map is used for plugin-handled structures only.
+ * Tape is recorded over private snapshot of prototype, so new instances are copies of prototype as it was at compile time.
+ * Instance is thread safe as long as plugins and custom copy functions are.
+ *
+ */
+public final class CompiledPrototype<T> {
+
+    private static final byte ALLOCATE_OBJECT = 0;
+    private static final byte ALLOCATE_OBJECT_ARRAY = 1;
+    private static final byte COPY_VALUE_ARRAY = 2;
+    private static final byte APPLY_COPY_FUNCTION = 3;
+    private static final byte INSTANTIATE_BY_PLUGIN = 4;
+    private static final byte CONSTRUCT = 5;
+    // Completion instructions, besides CONSTRUCT
+    private static final byte WIRE = 6;
+    private static final byte SET_PLUGIN_REFERENCES = 7;
+    private static final byte FILL_STRUCTURE = 8;
+
+    private static final int CONSTANT = -1;
+    private static final Consumer<Object> IGNORE_NESTED_OBJECTS = nestedObject -> {};
+
+    private final DeepCopyModule module;
+    // Prototype that is shared by copies has no nodes at all
+    private final Object sharedRoot;
+    // Per node: instruction, snapshot object and its plan, plugin for plugin-handled nodes
+    private final byte[] allocations;
+    private final Object[] snapshots;
+    private final ClassCopyPlan[] plans;
+    private final DeepCopyModulePlugin[] plugins;
+    // Wiring tape: field (or element index for arrays, when field is null) of node is set to value node or constant.
+    // Wirings to objects copied by constructor are done by completion tape, after construction
+    private final int[] wiringNodes;
+    private final FieldAccessor[] wiringFields;
+    private final int[] wiringIndexes;
+    private final int[] wiringValueNodes;
+    private final Object[] wiringConstants;
+    private final boolean[] completionWirings;
+    // Snapshot objects referenced by plugin-handled structures, which copies are put to context for plugins
+    private final Object[] pluginReferencedSnapshots;
+    private final int[] pluginReferencedNodes;
+    private final int[] pluginNodes;
+    // Per node copied by constructor: constructor arguments with constants set,
+    // and component nodes to put to arguments (CONSTANT for arguments that are constants)
+    private final Object[][] constructionArguments;
+    private final int[][] constructionComponentNodes;
+    // Completion tape: instruction and its node (wiring for WIRE), run in order that completes objects before
+    // objects copied by constructor referencing them. Plugin-handled structures it completes are left out of usual stages
+    private final byte[] completions;
+    private final int[] completionTargets;
+    private final Set<Object> completedSnapshots;
+    // Depth of the deepest node, for statistics
+    private final int depth;
+
+    private CompiledPrototype(DeepCopyModule module, Recorder recorder) {
+        this.module = module;
+        this.sharedRoot = recorder.sharedRoot;
+        int nodesCount = recorder.snapshots.size();
+        this.allocations = new byte[nodesCount];
+        for (int i = 0; i < nodesCount; i++) {
+            this.allocations[i] = recorder.allocations.get(i);
+        }
+        this.snapshots = recorder.snapshots.toArray();
+        this.plans = recorder.plans.toArray(ClassCopyPlan[]::new);
+        this.plugins = recorder.plugins.toArray(DeepCopyModulePlugin[]::new);
+        this.wiringNodes = toArray(recorder.wiringNodes);
+        this.wiringFields = recorder.wiringFields.toArray(FieldAccessor[]::new);
+        this.wiringIndexes = toArray(recorder.wiringIndexes);
+        this.wiringValueNodes = toArray(recorder.wiringValueNodes);
+        this.wiringConstants = recorder.wiringConstants.toArray();
+        this.pluginReferencedSnapshots = recorder.pluginReferencedSnapshots.toArray();
+        this.pluginReferencedNodes = toArray(recorder.pluginReferencedNodes);
+        this.pluginNodes = toArray(recorder.pluginNodes);
+        this.constructionArguments = recorder.constructionArguments.toArray(Object[][]::new);
+        this.constructionComponentNodes = recorder.constructionComponentNodes.toArray(int[][]::new);
+        Completion completion = new Completion(recorder, allocations, wiringNodes, wiringValueNodes);
+        completion.schedule();
+        this.completionWirings = completion.completionWirings;
+        this.completions = completion.instructions;
+        this.completionTargets = completion.targets;
+        this.completedSnapshots = completion.completedSnapshots;
+        this.depth = recorder.pendingDepths.stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    static <T> CompiledPrototype<T> compile(DeepCopyModule module, T snapshot) throws Exception {
+        Recorder recorder = new Recorder(module);
+        recorder.record(snapshot);
+        return new CompiledPrototype<>(module, recorder);
+    }
+
+    public T newInstance() throws Exception {
+        if (allocations.length == 0) {
+            return (T) sharedRoot;
+        }
+        Object[] copies = new Object[allocations.length];
+        CopyInstrumentation instrumentation = module.instrumentation();
+        if (instrumentation == null) {
+            CopyObjectContext context = allocate(copies);
+            wireAndConstruct(copies, context);
+            fillStructures(context);
+            return (T) copies[0];
+        }
+        CopyEvent event = instrumentation.copyStarted();
+        long start = System.nanoTime();
+        CopyObjectContext context = allocate(copies);
+        long allocated = System.nanoTime();
+        wireAndConstruct(copies, context);
+        long wired = System.nanoTime();
+        fillStructures(context);
+        instrumentation.prototypeInstantiated(plans, depth);
+        instrumentation.copyFinished(event, plans[0].type(), 1, copies.length, start, allocated, wired, System.nanoTime());
+        return (T) copies[0];
+    }
+
+    /**
+     * Allocates copies of nodes, except objects copied by constructor.
+     *
+     * @return context of plugin-handled structures, null if there are none
+     */
+    private CopyObjectContext allocate(Object[] copies) throws Exception {
+        for (int node = 0; node < copies.length; node++) {
+            Object snapshot = snapshots[node];
+            switch (allocations[node]) {
+                case ALLOCATE_OBJECT -> copies[node] = module.objectCopy(snapshot, plans[node]);
+                case ALLOCATE_OBJECT_ARRAY -> copies[node] = Array.newInstance(plans[node].type().getComponentType(), ((Object[]) snapshot).length);
+                case COPY_VALUE_ARRAY -> {
+                    int length = Array.getLength(snapshot);
+                    Object copy = Array.newInstance(plans[node].type().getComponentType(), length);
+                    System.arraycopy(snapshot, 0, copy, 0, length);
+                    copies[node] = copy;
+                }
+                case APPLY_COPY_FUNCTION -> copies[node] = plans[node].copyFunction().apply(snapshot);
+                default -> {
+                    // Plugin-handled structures and objects copied by constructor are instantiated after the other nodes, see below
+                }
+            }
+        }
+
+        if (pluginNodes.length == 0) {
+            return null;
+        }
+        CopyObjectContext context = new CopyObjectContext();
+        for (int node : pluginNodes) {
+            plugins[node].instantiateCopyObjects(snapshots[node], context, IGNORE_NESTED_OBJECTS);
+            context.registerDeferredReferences(snapshots[node]);
+            copies[node] = context.getCopyInstanceFor(snapshots[node]);
+        }
+        for (int i = 0; i < pluginReferencedSnapshots.length; i++) {
+            int node = pluginReferencedNodes[i];
+            Object snapshot = pluginReferencedSnapshots[i];
+            if (node == CONSTANT || allocations[node] != CONSTRUCT) {
+                // Copies of objects copied by constructor are put once they are constructed
+                context.putCopyInstanceFor(snapshot, node == CONSTANT ? snapshot : copies[node]);
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Runs wiring tape, then completion tape, and sets references of plugin-handled structures it didn't complete.
+     */
+    private void wireAndConstruct(Object[] copies, CopyObjectContext context) throws Exception {
+        for (int i = 0; i < wiringNodes.length; i++) {
+            if (!completionWirings[i]) {
+                wire(i, copies);
+            }
+        }
+
+        for (int i = 0; i < completions.length; i++) {
+            int target = completionTargets[i];
+            switch (completions[i]) {
+                case CONSTRUCT -> {
+                    copies[target] = construct(target, copies);
+                    if (context != null) {
+                        context.putCopyInstanceFor(snapshots[target], copies[target]);
+                    }
+                }
+                case WIRE -> wire(target, copies);
+                case SET_PLUGIN_REFERENCES -> module.setDeferredReferences(snapshots[target], context);
+                default -> module.fillValueDependentDataStructure(snapshots[target], context);
+            }
+        }
+
+        if (context != null) {
+            if (!completedSnapshots.isEmpty()) {
+                context.removeFromCopyStages(completedSnapshots);
+            }
+            module.setReferenceValues(context);
+        }
+    }
+
+    private void fillStructures(CopyObjectContext context) throws Exception {
+        if (context != null) {
+            module.fillValueDependentDataStructures(context);
+        }
+    }
+
+    private void wire(int wiring, Object[] copies) {
+        Object value = wiringValueNodes[wiring] == CONSTANT ? wiringConstants[wiring] : copies[wiringValueNodes[wiring]];
+        if (wiringFields[wiring] != null) {
+            wiringFields[wiring].set(copies[wiringNodes[wiring]], value);
+        } else {
+            ((Object[]) copies[wiringNodes[wiring]])[wiringIndexes[wiring]] = value;
+        }
+    }
+
+    private Object construct(int node, Object[] copies) throws IllegalAccessException {
+        Object[] arguments = constructionArguments[node].clone();
+        int[] componentNodes = constructionComponentNodes[node];
+        for (int i = 0; i < arguments.length; i++) {
+            if (componentNodes[i] != CONSTANT) {
+                arguments[i] = copies[componentNodes[i]];
+            }
+        }
+        return plans[node].constructorCopier().construct(snapshots[node], arguments);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Walks snapshot graph once assigning node numbers in discovery order, so parents go before children
+     * as in ordinary copy, and records instructions for every node.
+     */
+    private static class Recorder {
+
+        private final DeepCopyModule module;
+        private Object sharedRoot;
+        private final Map<Object, Integer> nodes = new IdentityHashMap<>();
+        private final List<Object> pendingSnapshots = new ArrayList<>();
+        private final List<Integer> pendingDepths = new ArrayList<>();
+        // Depth of objects referenced by node being recorded, deeper than module max depth ones are shared
+        private int referencedDepth;
+        private final List<Byte> allocations = new ArrayList<>();
+        private final List<Object> snapshots = new ArrayList<>();
+        private final List<ClassCopyPlan> plans = new ArrayList<>();
+        private final List<DeepCopyModulePlugin> plugins = new ArrayList<>();
+        private final List<Integer> wiringNodes = new ArrayList<>();
+        private final List<FieldAccessor> wiringFields = new ArrayList<>();
+        private final List<Integer> wiringIndexes = new ArrayList<>();
+        private final List<Integer> wiringValueNodes = new ArrayList<>();
+        private final List<Object> wiringConstants = new ArrayList<>();
+        private final List<Object> pluginReferencedSnapshots = new ArrayList<>();
+        private final List<Integer> pluginReferencedNodes = new ArrayList<>();
+        private final List<Integer> pluginNodes = new ArrayList<>();
+        private final List<Object[]> constructionArguments = new ArrayList<>();
+        private final List<int[]> constructionComponentNodes = new ArrayList<>();
+        // Per node: nodes its copy references, and whether it's value dependent structure
+        private final List<int[]> referencedNodes = new ArrayList<>();
+        private final List<Boolean> valueDependentNodes = new ArrayList<>();
+        private final List<Integer> nodeReferences = new ArrayList<>();
+        private boolean valueDependentNode;
+
+        private Recorder(DeepCopyModule module) {
+            this.module = module;
+        }
+
+        private void record(Object root) throws Exception {
+            if (nodeOf(root) == CONSTANT) {
+                sharedRoot = root;
+            }
+            for (int node = 0; node < pendingSnapshots.size(); node++) {
+                referencedDepth = pendingDepths.get(node) + 1;
+                recordNode(node, pendingSnapshots.get(node));
+            }
+        }
+
+        private void recordNode(int node, Object snapshot) throws Exception {
+            ClassCopyPlan plan = module.copyPlan(snapshot.getClass());
+            DeepCopyModulePlugin plugin = null;
+            nodeReferences.clear();
+            valueDependentNode = false;
+            byte allocation = switch (plan.strategy()) {
+                case CUSTOM_FUNCTION -> APPLY_COPY_FUNCTION;
+                case VALUE_ARRAY -> COPY_VALUE_ARRAY;
+                case OBJECT_ARRAY -> {
+                    Object[] array = (Object[]) snapshot;
+                    for (int i = 0; i < array.length; i++) {
+                        recordWiring(node, null, i, array[i]);
+                    }
+                    yield ALLOCATE_OBJECT_ARRAY;
+                }
+                case PLUGIN -> {
+                    plugin = recordPluginNode(node, snapshot, plan);
+                    yield plugin != null ? INSTANTIATE_BY_PLUGIN : recordObjectNode(node, snapshot, plan);
+                }
+                case REFLECTIVE -> recordObjectNode(node, snapshot, plan);
+                case CONSTRUCTOR -> recordConstructedNode(snapshot, plan);
+                case SHARED -> throw new IllegalStateException("Shared object " + snapshot.getClass() + " can't be a node");
+            };
+            if (allocation != CONSTRUCT) {
+                constructionArguments.add(null);
+                constructionComponentNodes.add(null);
+            }
+            allocations.add(allocation);
+            snapshots.add(snapshot);
+            plans.add(plan);
+            plugins.add(plugin);
+            referencedNodes.add(toArray(nodeReferences));
+            valueDependentNodes.add(valueDependentNode);
+        }
+
+        private byte recordObjectNode(int node, Object snapshot, ClassCopyPlan plan) throws Exception {
+            for (FieldAccessor field : plan.referenceFields()) {
+                recordWiring(node, field, 0, field.get(snapshot));
+            }
+            return ALLOCATE_OBJECT;
+        }
+
+        private byte recordConstructedNode(Object snapshot, ClassCopyPlan plan) throws Exception {
+            ConstructorCopier copier = plan.constructorCopier();
+            Object[] arguments = copier.components(snapshot);
+            int[] componentNodes = new int[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                componentNodes[i] = copier.isReference(i) ? nodeOf(arguments[i]) : CONSTANT;
+                if (componentNodes[i] != CONSTANT) {
+                    arguments[i] = null;
+                    nodeReferences.add(componentNodes[i]);
+                }
+            }
+            constructionArguments.add(arguments);
+            constructionComponentNodes.add(componentNodes);
+            return CONSTRUCT;
+        }
+
+        /**
+         * @return plugin handling snapshot object, or null if none of plugins proceeds it
+         */
+        private DeepCopyModulePlugin recordPluginNode(int node, Object snapshot, ClassCopyPlan plan) throws Exception {
+            // Plugin is run once over scratch context just to learn which objects its structure references
+            List<Object> nestedObjects = new ArrayList<>();
+            for (DeepCopyModulePlugin plugin : plan.plugins()) {
+                CopyObjectContext scratchContext = new CopyObjectContext();
+                if (plugin.instantiateCopyObjects(snapshot, scratchContext, nestedObjects::add)) {
+                    pluginNodes.add(node);
+                    for (Object nestedObject : nestedObjects) {
+                        if (nestedObject != null) {
+                            int nestedNode = nodeOf(nestedObject);
+                            pluginReferencedSnapshots.add(nestedObject);
+                            pluginReferencedNodes.add(nestedNode);
+                            if (nestedNode != CONSTANT) {
+                                nodeReferences.add(nestedNode);
+                            }
+                        }
+                    }
+                    valueDependentNode = scratchContext.srcValueDependentDataStructures().stream().anyMatch(structure -> structure == snapshot);
+                    return plugin;
+                }
+                nestedObjects.clear();
+            }
+            return null;
+        }
+
+        private void recordWiring(int node, FieldAccessor field, int index, Object value) {
+            int valueNode = nodeOf(value);
+            if (valueNode != CONSTANT) {
+                nodeReferences.add(valueNode);
+            }
+            wiringNodes.add(node);
+            wiringFields.add(field);
+            wiringIndexes.add(index);
+            wiringValueNodes.add(valueNode);
+            wiringConstants.add(valueNode == CONSTANT ? value : null);
+        }
+
+        /**
+         * @return node number of snapshot object, or CONSTANT if object is null or shared by copies
+         */
+        private int nodeOf(Object snapshot) {
+            if (snapshot == null || module.copyPlan(snapshot.getClass()).strategy() == ClassCopyPlan.Strategy.SHARED) {
+                return CONSTANT;
+            }
+            Integer node = nodes.get(snapshot);
+            if (node == null) {
+                // Nodes are discovered breadth first, so object found within depth limit first has the shortest path to it
+                if (referencedDepth > module.maxDepth()) {
+                    return CONSTANT;
+                }
+                node = pendingSnapshots.size();
+                nodes.put(snapshot, node);
+                pendingSnapshots.add(snapshot);
+                pendingDepths.add(referencedDepth);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Schedules completion tape as {@link PendingConstructions} completes ordinary copy: subgraph of each node copied
+     * by constructor is walked depth first, and node is completed once nodes it references are. Object node gets its wirings
+     * to constructed nodes, plugin node gets its references set and structure filled, constructed node is constructed.
+     * Constructed node referenced back from its own subgraph is constructed when it's needed. Wirings to constructed nodes
+     * from outside of their subgraphs are done at the end.
+     */
+    private static class Completion {
+
+        private final byte[] allocations;
+        private final List<int[]> referencedNodes;
+        private final List<Boolean> valueDependentNodes;
+        private final List<Object> snapshots;
+        private final List<int[]> constructionComponentNodes;
+        private final int[] wiringNodes;
+        private final int[] wiringValueNodes;
+        // Per node: index of its first wiring, wirings of node are recorded one after another
+        private final int[] wiringStarts;
+        private final boolean[] completionWirings;
+        // 0 - not visited, 1 - on walk stack, 2 - completed
+        private final byte[] states;
+        private final int[] positions;
+        private final int[] stack;
+        private final boolean[] constructed;
+        private final boolean[] constructionsInProgress;
+        private final int[] constructionStack;
+        private final Set<Object> completedSnapshots = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Byte> instructionList = new ArrayList<>();
+        private final List<Integer> targetList = new ArrayList<>();
+        private byte[] instructions;
+        private int[] targets;
+
+        private Completion(Recorder recorder, byte[] allocations, int[] wiringNodes, int[] wiringValueNodes) {
+            this.allocations = allocations;
+            this.referencedNodes = recorder.referencedNodes;
+            this.valueDependentNodes = recorder.valueDependentNodes;
+            this.snapshots = recorder.snapshots;
+            this.constructionComponentNodes = recorder.constructionComponentNodes;
+            this.wiringNodes = wiringNodes;
+            this.wiringValueNodes = wiringValueNodes;
+            int nodesCount = allocations.length;
+            this.wiringStarts = new int[nodesCount + 1];
+            int wiring = 0;
+            for (int node = 0; node <= nodesCount; node++) {
+                while (wiring < wiringNodes.length && wiringNodes[wiring] < node) {
+                    wiring++;
+                }
+                wiringStarts[node] = wiring;
+            }
+            this.completionWirings = new boolean[wiringNodes.length];
+            for (int i = 0; i < wiringNodes.length; i++) {
+                completionWirings[i] = wiringValueNodes[i] != CONSTANT && allocations[wiringValueNodes[i]] == CONSTRUCT;
+            }
+            this.states = new byte[nodesCount];
+            this.positions = new int[nodesCount];
+            this.stack = new int[nodesCount];
+            this.constructed = new boolean[nodesCount];
+            this.constructionsInProgress = new boolean[nodesCount];
+            this.constructionStack = new int[nodesCount];
+        }
+
+        private void schedule() {
+            boolean[] wired = new boolean[wiringNodes.length];
+            for (int start = 0; start < allocations.length; start++) {
+                if (allocations[start] == CONSTRUCT && states[start] == 0) {
+                    walk(start, wired);
+                }
+            }
+            for (int i = 0; i < wiringNodes.length; i++) {
+                if (completionWirings[i] && !wired[i]) {
+                    add(WIRE, i);
+                }
+            }
+            instructions = new byte[instructionList.size()];
+            for (int i = 0; i < instructions.length; i++) {
+                instructions[i] = instructionList.get(i);
+            }
+            targets = toArray(targetList);
+        }
+
+        private void walk(int root, boolean[] wired) {
+            int stackSize = 0;
+            stack[stackSize++] = root;
+            states[root] = 1;
+            while (stackSize > 0) {
+                int node = stack[stackSize - 1];
+                int[] references = referencedNodes.get(node);
+                if (positions[node] < references.length) {
+                    int reference = references[positions[node]++];
+                    if (states[reference] == 0) {
+                        states[reference] = 1;
+                        stack[stackSize++] = reference;
+                    }
+                    continue;
+                }
+                stackSize--;
+                complete(node, references, wired);
+                states[node] = 2;
+            }
+        }
+
+        private void complete(int node, int[] references, boolean[] wired) {
+            // Referenced node can be still not constructed only if it's on walk stack, i.e. node is in its cycle
+            for (int reference : references) {
+                if (allocations[reference] == CONSTRUCT && !constructed[reference]) {
+                    construct(reference);
+                }
+            }
+            switch (allocations[node]) {
+                case ALLOCATE_OBJECT, ALLOCATE_OBJECT_ARRAY -> {
+                    for (int i = wiringStarts[node]; i < wiringStarts[node + 1]; i++) {
+                        if (completionWirings[i]) {
+                            add(WIRE, i);
+                            wired[i] = true;
+                        }
+                    }
+                }
+                case INSTANTIATE_BY_PLUGIN -> {
+                    add(SET_PLUGIN_REFERENCES, node);
+                    if (valueDependentNodes.get(node)) {
+                        add(FILL_STRUCTURE, node);
+                    }
+                    completedSnapshots.add(snapshots.get(node));
+                }
+                case CONSTRUCT -> {
+                    if (!constructed[node]) {
+                        construct(node);
+                    }
+                }
+                default -> {
+                    // Nothing to complete
+                }
+            }
+        }
+
+        /**
+         * Constructs node with current copies of its components, components copied by constructor are constructed first.
+         */
+        private void construct(int node) {
+            int[] stack = constructionStack;
+            int stackSize = 0;
+            stack[stackSize++] = node;
+            constructionsInProgress[node] = true;
+            while (stackSize > 0) {
+                int pending = stack[stackSize - 1];
+                int pendingComponent = CONSTANT;
+                for (int component : constructionComponentNodes.get(pending)) {
+                    if (component != CONSTANT && allocations[component] == CONSTRUCT && !constructed[component]) {
+                        if (constructionsInProgress[component]) {
+                            throw new IllegalStateException("Object of " + snapshots.get(component).getClass().getName()
+                                    + " copied by constructor references itself through objects copied by constructor");
+                        }
+                        pendingComponent = component;
+                        break;
+                    }
+                }
+                if (pendingComponent != CONSTANT) {
+                    constructionsInProgress[pendingComponent] = true;
+                    stack[stackSize++] = pendingComponent;
+                    continue;
+                }
+                stackSize--;
+                constructionsInProgress[pending] = false;
+                constructed[pending] = true;
+                add(CONSTRUCT, pending);
+            }
+        }
+
+        private void add(byte instruction, int target) {
+            instructionList.add(instruction);
+            targetList.add(target);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package deepcopy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ *
+ * Copy context shared by fork/join tasks of parallel copy. The first copy put for source object wins,
+ * so shared and cyclic references resolve to exactly one copy even when several tasks reach the same object at once.
+ * Registrations and plugin data are deduplicated for the same reason. Order of value dependent structures still follows discovery:
+ * structure is registered before its nested objects are queued and handed over to other tasks.
+ *
+ */
+final class ConcurrentCopyObjectContext extends CopyObjectContext {
+
+    private final ConcurrentHashMap<IdentityKey, Object> srcRefToCopyObjectMap = new ConcurrentHashMap<>();
+    private final Set<IdentityKey> deferredReferenceKeys = ConcurrentHashMap.newKeySet();
+    private final Queue<Object> deferredReferenceObjects = new ConcurrentLinkedQueue<>();
+    private final Set<IdentityKey> valueDependentDataStructureKeys = ConcurrentHashMap.newKeySet();
+    private final Queue<Object> valueDependentDataStructures = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<IdentityKey, Object> pluginData = new ConcurrentHashMap<>();
+    private final Queue<Object> pendingConstructions = new ConcurrentLinkedQueue<>();
+    private final Queue<Object> pendingReferenceObjects = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void putCopyInstanceFor(Object proto, Object copy) {
+        srcRefToCopyObjectMap.putIfAbsent(new IdentityKey(proto), copy != null ? copy : NULL_COPY);
+    }
+
+    @Override
+    Object putCopyInstanceIfAbsent(Object proto, Object copy) {
+        Object existingCopy = srcRefToCopyObjectMap.putIfAbsent(new IdentityKey(proto), copy != null ? copy : NULL_COPY);
+        if (existingCopy == null) {
+            return copy;
+        }
+        return existingCopy != NULL_COPY ? existingCopy : null;
+    }
+
+    @Override
+    public Object getCopyInstanceFor(Object proto) {
+        if (proto == null) {
+            return null;
+        }
+        Object copy = srcRefToCopyObjectMap.get(new IdentityKey(proto));
+        return copy != NULL_COPY ? copy : null;
+    }
+
+    @Override
+    Object findCopyInstance(Object proto) {
+        // Null copies are kept as NULL_COPY, as ConcurrentHashMap doesn't keep null values
+        return srcRefToCopyObjectMap.get(new IdentityKey(proto));
+    }
+
+    @Override
+    public boolean exists(Object proto) {
+        return srcRefToCopyObjectMap.containsKey(new IdentityKey(proto));
+    }
+
+    @Override
+    int size() {
+        return srcRefToCopyObjectMap.size();
+    }
+
+    @Override
+    public void registerValueDependentDataStructure(Object dataStructure) {
+        if (valueDependentDataStructureKeys.add(new IdentityKey(dataStructure))) {
+            valueDependentDataStructures.add(dataStructure);
+        }
+    }
+
+    @Override
+    public List<Object> srcValueDependentDataStructures() {
+        return new ArrayList<>(valueDependentDataStructures);
+    }
+
+    @Override
+    public void putPluginData(Object proto, Object data) {
+        pluginData.putIfAbsent(new IdentityKey(proto), data);
+    }
+
+    @Override
+    public Object getPluginData(Object proto) {
+        return pluginData.get(new IdentityKey(proto));
+    }
+
+    @Override
+    void registerDeferredReferences(Object proto) {
+        if (deferredReferenceKeys.add(new IdentityKey(proto))) {
+            deferredReferenceObjects.add(proto);
+        }
+    }
+
+    @Override
+    List<Object> deferredReferenceObjects() {
+        return new ArrayList<>(deferredReferenceObjects);
+    }
+
+    @Override
+    void registerPendingConstruction(Object proto) {
+        pendingConstructions.add(proto);
+    }
+
+    @Override
+    List<Object> pendingConstructions() {
+        return new ArrayList<>(pendingConstructions);
+    }
+
+    @Override
+    void completeConstruction(Object proto, Object copy) {
+        srcRefToCopyObjectMap.put(new IdentityKey(proto), copy);
+    }
+
+    @Override
+    void registerPendingReferences(Object proto) {
+        pendingReferenceObjects.add(proto);
+    }
+
+    @Override
+    List<Object> pendingReferenceObjects() {
+        return new ArrayList<>(pendingReferenceObjects);
+    }
+
+    @Override
+    void removeFromCopyStages(Set<Object> completedObjects) {
+        deferredReferenceObjects.removeIf(completedObjects::contains);
+        valueDependentDataStructures.removeIf(completedObjects::contains);
+    }
+
+    private record IdentityKey(Object ref) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey other && other.ref == ref;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(ref);
+        }
+    }
+}
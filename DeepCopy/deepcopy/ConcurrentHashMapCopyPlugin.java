@@ -0,0 +1,63 @@
+package deepcopy;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Copies ConcurrentHashMap that may be modified by other threads during copy. Entries are captured once
+ * into {@link EntrySnapshot}, that is used both to instantiate nested objects and to fill copy, so every entry put into copy
+ * has its key and value copied. Copy is a consistent snapshot of the same entries that a single iteration of source sees.
+ * Large copies are filled in parallel, copy map supports concurrent puts and context is only read on this stage.
+ */
+public class ConcurrentHashMapCopyPlugin implements DeepCopyModulePlugin {
+
+    private static final int DEFAULT_PARALLELISM_THRESHOLD = 1 << 13;
+
+    private final int parallelismThreshold;
+
+    public ConcurrentHashMapCopyPlugin() {
+        this(DEFAULT_PARALLELISM_THRESHOLD);
+    }
+
+    /**
+     * @param parallelismThreshold number of entries from which copy is filled in parallel, Integer.MAX_VALUE disables parallel fill
+     */
+    public ConcurrentHashMapCopyPlugin(int parallelismThreshold) {
+        this.parallelismThreshold = parallelismThreshold;
+    }
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == ConcurrentHashMap.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        EntrySnapshot snapshot = EntrySnapshot.of((ConcurrentHashMap<?, ?>) src);
+        ConcurrentHashMap<Object, Object> copy = new ConcurrentHashMap<>(snapshot.size);
+        context.putCopyInstanceFor(src, copy);
+        if (context.getCopyInstanceFor(src) != copy) {
+            return true;
+        }
+        context.putPluginData(src, snapshot);
+        context.registerValueDependentDataStructure(src);
+        snapshot.forEachObject(nestedObjectsInstantiation);
+        return true;
+    }
+
+    @Override
+    public boolean fillValueDependentDataStructure(Object src, CopyObjectContext context) {
+        ConcurrentHashMap<Object, Object> copyMap = (ConcurrentHashMap<Object, Object>) context.getCopyInstanceFor(src);
+        EntrySnapshot snapshot = (EntrySnapshot) context.getPluginData(src);
+        IntStream indexes = IntStream.range(0, snapshot.size);
+        if (snapshot.size >= parallelismThreshold) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> copyMap.put(
+                context.getCopyInstanceFor(snapshot.keys[i]),
+                context.getCopyInstanceFor(snapshot.values[i])
+        ));
+        return true;
+    }
+}
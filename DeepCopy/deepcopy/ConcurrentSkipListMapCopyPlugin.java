@@ -0,0 +1,43 @@
+package deepcopy;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Copies ConcurrentSkipListMap that may be modified by other threads during copy. Entries are captured once
+ * into {@link EntrySnapshot} in key order, and copy with the same comparator is filled from the same entries
+ * whose keys and values were instantiated.
+ */
+public class ConcurrentSkipListMapCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == ConcurrentSkipListMap.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        ConcurrentSkipListMap<?, ?> srcMap = (ConcurrentSkipListMap<?, ?>) src;
+        EntrySnapshot snapshot = EntrySnapshot.of(srcMap);
+        ConcurrentSkipListMap<Object, Object> copy = new ConcurrentSkipListMap<>((Comparator<Object>) srcMap.comparator());
+        context.putCopyInstanceFor(src, copy);
+        if (context.getCopyInstanceFor(src) != copy) {
+            return true;
+        }
+        context.putPluginData(src, snapshot);
+        context.registerValueDependentDataStructure(src);
+        snapshot.forEachObject(nestedObjectsInstantiation);
+        return true;
+    }
+
+    @Override
+    public boolean fillValueDependentDataStructure(Object src, CopyObjectContext context) {
+        ConcurrentSkipListMap<Object, Object> copyMap = (ConcurrentSkipListMap<Object, Object>) context.getCopyInstanceFor(src);
+        EntrySnapshot snapshot = (EntrySnapshot) context.getPluginData(src);
+        for (int i = 0; i < snapshot.size; i++) {
+            copyMap.put(context.getCopyInstanceFor(snapshot.keys[i]), context.getCopyInstanceFor(snapshot.values[i]));
+        }
+        return true;
+    }
+}
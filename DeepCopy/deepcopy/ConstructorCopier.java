@@ -0,0 +1,39 @@
+package deepcopy;
+
+/**
+ *
+ * Copy of object made by single constructor call with copies of its components, instead of instantiate-then-set-fields,
+ * that is impossible for final fields of records and for immutable collections. Constructor is called once copies
+ * of components are complete, so it may read them.
+ *
+ */
+interface ConstructorCopier {
+
+    static ConstructorCopier of(Class<?> type, FieldRules fieldRules) throws IllegalAccessException {
+        if (ImmutableCollectionCopier.isImmutableCollection(type)) {
+            return ImmutableCollectionCopier.of(type);
+        }
+        return CanonicalConstructorCopier.of(type, fieldRules);
+    }
+
+    /**
+     * Component values of src, count of components may differ from object to object of the same class.
+     */
+    Object[] components(Object src);
+
+    /**
+     * @return true if component is copied through references, otherwise its value from {@link #components} is passed as is
+     */
+    boolean isReference(int component);
+
+    /**
+     * Compares component not copied through references, primitives by value and shared references by identity.
+     */
+    boolean sameValue(Object src, Object copy, int component);
+
+    /**
+     * @param components copies of src components, values of components not copied through references
+     */
+    Object construct(Object src, Object[] components);
+
+}
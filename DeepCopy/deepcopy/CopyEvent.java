@@ -0,0 +1,41 @@
+package deepcopy;
+
+import jdk.jfr.*;
+
+/**
+ *
+ * JFR event of one copy made by instrumented module. Event duration is duration of the whole copy,
+ * phases are timed separately, so slow copies can be attributed to the phase and root class responsible.
+ * Copy of many roots by deepCopyAll() reports class shared by all roots, or Object if they differ.
+ * For instance of compiled prototype phases are allocation, wiring with construction and plugin fill.
+ *
+ */
+@Name("deepcopy.Copy")
+@Label("Deep Copy")
+@Category("Deep Copy")
+@Description("Copy of object graph by DeepCopyModule")
+@StackTrace(false)
+final class CopyEvent extends Event {
+
+    @Label("Root Class")
+    Class<?> rootClass;
+
+    @Label("Roots")
+    int roots;
+
+    @Label("Objects")
+    @Description("Objects reached by copy: copied and shared ones")
+    int objects;
+
+    @Label("Copy To Context")
+    @Timespan(Timespan.NANOSECONDS)
+    long copyToContextDuration;
+
+    @Label("Set Reference Values")
+    @Timespan(Timespan.NANOSECONDS)
+    long setReferenceValuesDuration;
+
+    @Label("Fill Value Dependent Data Structures")
+    @Timespan(Timespan.NANOSECONDS)
+    long fillValueDependentDataStructuresDuration;
+}
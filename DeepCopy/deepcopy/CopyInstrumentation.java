@@ -0,0 +1,200 @@
+package deepcopy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Statistics of instrumented module. Module keeps null instead of instrumentation when it's disabled,
+ * so the only cost of disabled instrumentation is null check of final field. Counters are adders,
+ * as objects of one class may be copied by many threads at once, and counters of class are kept by its copy plan,
+ * so counting an object doesn't need any lookup. Counters are registered by weak class keys, so instrumentation
+ * doesn't keep classes from unloading, counts of unloaded classes are dropped with them.
+ * <p>
+ * Every kind of copy is counted: deepCopy(), deepCopyAll(), deepCopyInto(), snapshots of {@link IncrementalSnapshots}
+ * and instances of {@link CompiledPrototype}. Objects that snapshot shares with previous one are not counted,
+ * as they are not reached. Compiled prototype has no traversal, so its phases are allocation, wiring with construction,
+ * and plugin fill, and constants it references are not counted as shared objects.
+ *
+ */
+final class CopyInstrumentation implements CopyStatisticsMXBean {
+
+    private final LongAdder copies = new LongAdder();
+    private final LongAdder copyToContextNanos = new LongAdder();
+    private final LongAdder setReferenceValuesNanos = new LongAdder();
+    private final LongAdder fillValueDependentDataStructuresNanos = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    // Looked up once per class copy plan only, so synchronized map is enough
+    private final Map<Class<?>, ClassCounters> classCounters = Collections.synchronizedMap(new WeakHashMap<>());
+
+    ClassCounters countersFor(ClassCopyPlan plan) {
+        DeepCopyModulePlugin[] plugins = plan.plugins();
+        return classCounters.computeIfAbsent(plan.type(), type -> new ClassCounters(plugins));
+    }
+
+    void objectReached(ClassCopyPlan plan, boolean shared, int depth) {
+        ClassCounters counters = plan.counters();
+        (shared ? counters.shared : counters.copied).increment();
+        // Plain read first, max depth is rarely updated
+        if (depth > maxDepth.get()) {
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    /**
+     * Counts objects of compiled prototype instance, one per node, depth is depth of the deepest node.
+     */
+    void prototypeInstantiated(ClassCopyPlan[] plans, int depth) {
+        for (ClassCopyPlan plan : plans) {
+            plan.counters().copied.increment();
+        }
+        if (depth > maxDepth.get()) {
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    void pluginHit(ClassCopyPlan plan, int pluginIndex) {
+        plan.counters().pluginHits[pluginIndex].increment();
+    }
+
+    CopyEvent copyStarted() {
+        CopyEvent event = new CopyEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param rootClass class of copied root, for copy of many roots class they all share or Object, null if there are no roots
+     */
+    void copyFinished(CopyEvent event, Class<?> rootClass, int roots, int objects, long start, long copiedToContext, long referencesSet, long end) {
+        copies.increment();
+        copyToContextNanos.add(copiedToContext - start);
+        setReferenceValuesNanos.add(referencesSet - copiedToContext);
+        fillValueDependentDataStructuresNanos.add(end - referencesSet);
+        event.end();
+        if (event.shouldCommit()) {
+            event.rootClass = rootClass;
+            event.roots = roots;
+            event.objects = objects;
+            event.copyToContextDuration = copiedToContext - start;
+            event.setReferenceValuesDuration = referencesSet - copiedToContext;
+            event.fillValueDependentDataStructuresDuration = end - referencesSet;
+            event.commit();
+        }
+    }
+
+    CopyStatistics snapshot() {
+        return new CopyStatistics(
+                getCopies(),
+                getCopyToContextNanos(),
+                getSetReferenceValuesNanos(),
+                getFillValueDependentDataStructuresNanos(),
+                getMaxDepth(),
+                getCopiedObjects(),
+                getSharedObjects(),
+                getPluginHits()
+        );
+    }
+
+    @Override
+    public long getCopies() {
+        return copies.sum();
+    }
+
+    @Override
+    public long getCopyToContextNanos() {
+        return copyToContextNanos.sum();
+    }
+
+    @Override
+    public long getSetReferenceValuesNanos() {
+        return setReferenceValuesNanos.sum();
+    }
+
+    @Override
+    public long getFillValueDependentDataStructuresNanos() {
+        return fillValueDependentDataStructuresNanos.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public Map<String, Long> getCopiedObjects() {
+        Map<String, Long> copiedObjects = new TreeMap<>();
+        classCounters.forEach((type, counters) -> addCount(copiedObjects, type.getName(), counters.copied.sum()));
+        return copiedObjects;
+    }
+
+    @Override
+    public Map<String, Long> getSharedObjects() {
+        Map<String, Long> sharedObjects = new TreeMap<>();
+        classCounters.forEach((type, counters) -> addCount(sharedObjects, type.getName(), counters.shared.sum()));
+        return sharedObjects;
+    }
+
+    @Override
+    public Map<String, Long> getPluginHits() {
+        Map<String, Long> pluginHits = new TreeMap<>();
+        classCounters.forEach((type, counters) -> {
+            for (int i = 0; i < counters.pluginHits.length; i++) {
+                DeepCopyModulePlugin plugin = counters.plugins[i];
+                if (plugin instanceof PerObjectSupportPlugin adapter) {
+                    plugin = adapter.plugin();
+                }
+                addCount(pluginHits, plugin.getClass().getName(), counters.pluginHits[i].sum());
+            }
+        });
+        return pluginHits;
+    }
+
+    /**
+     * Resets counters, copies that are in progress may be counted partially.
+     */
+    @Override
+    public void reset() {
+        copies.reset();
+        copyToContextNanos.reset();
+        setReferenceValuesNanos.reset();
+        fillValueDependentDataStructuresNanos.reset();
+        maxDepth.set(0);
+        classCounters.forEach((type, counters) -> {
+            counters.copied.reset();
+            counters.shared.reset();
+            for (LongAdder pluginHits : counters.pluginHits) {
+                pluginHits.reset();
+            }
+        });
+    }
+
+    private static void addCount(Map<String, Long> counts, String name, long count) {
+        if (count > 0) {
+            counts.merge(name, count, Long::sum);
+        }
+    }
+
+    /**
+     * Counters of one class, plugin hits are counted per plugin of class copy plan.
+     */
+    static final class ClassCounters {
+
+        private final LongAdder copied = new LongAdder();
+        private final LongAdder shared = new LongAdder();
+        private final DeepCopyModulePlugin[] plugins;
+        private final LongAdder[] pluginHits;
+
+        private ClassCounters(DeepCopyModulePlugin[] plugins) {
+            this.plugins = plugins != null ? plugins : new DeepCopyModulePlugin[0];
+            this.pluginHits = new LongAdder[this.plugins.length];
+            for (int i = 0; i < pluginHits.length; i++) {
+                pluginHits[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -4,37 +4,209 @@ import java.util.*;
 
 public class CopyObjectContext {
 
-    private Map<String, Object> srcRefToCopyObjectMap = new HashMap<>();
-    private List<Object> srcObjects = new ArrayList<>();
+    // Found copy of object copied to null, custom copy function is allowed to return null
+    static final Object NULL_COPY = new Object();
+    // Copy of object copied by constructor, which waits for its components to be complete
+    static final Object PENDING_CONSTRUCTION = new Object();
+
+    private Map<Object, Object> srcRefToCopyObjectMap = new IdentityHashMap<>();
+    private List<Object> deferredReferenceObjects = new ArrayList<>();
     private List<Object> valueDependentDataStructures = new ArrayList<>();
+    private List<Object> pendingConstructions = new ArrayList<>();
+    private List<Object> pendingReferenceObjects = new ArrayList<>();
+    private Map<Object, Object> pluginData;
+    private Map<Object, Object> reusableCopies;
+    private Set<Object> claimedReusableCopies;
+    // Objects reachable from roots by at most max depth references, null if copy isn't depth limited
+    private Set<Object> objectsWithinDepth;
+    private int peakSize;
 
     public void putCopyInstanceFor(Object proto, Object copy) {
-        this.srcRefToCopyObjectMap.put(refString(proto), copy);
-        this.srcObjects.add(proto);
+        this.srcRefToCopyObjectMap.put(proto, copy);
     }
 
     public Object getCopyInstanceFor(Object proto) {
-        return this.srcRefToCopyObjectMap.get(refString(proto));
+        if (proto == null) {
+            return null;
+        }
+        return this.srcRefToCopyObjectMap.get(proto);
+    }
+
+    /**
+     * Looks copy of proto up at once, so parallel copy can't put it between lookup of copy and check that it exists.
+     *
+     * @return copy of proto, {@link #NULL_COPY} if proto is copied to null, {@link #PENDING_CONSTRUCTION}
+     * if its copy isn't constructed yet, or null if proto isn't copied yet
+     */
+    Object findCopyInstance(Object proto) {
+        Object copy = this.srcRefToCopyObjectMap.get(proto);
+        return copy != null || !this.srcRefToCopyObjectMap.containsKey(proto) ? copy : NULL_COPY;
     }
 
     public void registerValueDependentDataStructure(Object dataStructure) {
         valueDependentDataStructures.add(dataStructure);
     }
 
-    public boolean exists(Object proto) {
-        return this.srcRefToCopyObjectMap.containsKey(refString(proto));
+    /**
+     * Puts copy for proto unless another copy was put before, that can happen in parallel copy only.
+     *
+     * @return copy instance that is kept in context for proto
+     */
+    Object putCopyInstanceIfAbsent(Object proto, Object copy) {
+        this.srcRefToCopyObjectMap.put(proto, copy);
+        return copy;
     }
 
-    public List<Object> srcObjectsAsList() {
-        return srcObjects;
+    public boolean exists(Object proto) {
+        return this.srcRefToCopyObjectMap.containsKey(proto);
     }
 
     public List<Object> srcValueDependentDataStructures() {
         return valueDependentDataStructures;
     }
 
-    private String refString(Object obj) {
-        return Integer.toHexString(System.identityHashCode(obj));
+    /**
+     * Keeps plugin data related to proto between copy stages, e.g. mutable structure behind unmodifiable copy.
+     * In parallel copy several tasks may instantiate the same proto at once, and only the first copy and the first data
+     * put for proto are kept. So plugin puts data only if {@link #getCopyInstanceFor} returns the copy it has just put.
+     */
+    public void putPluginData(Object proto, Object data) {
+        if (pluginData == null) {
+            pluginData = new IdentityHashMap<>();
+        }
+        pluginData.put(proto, data);
+    }
+
+    public Object getPluginData(Object proto) {
+        return pluginData != null ? pluginData.get(proto) : null;
+    }
+
+    /**
+     * Offers object of previous copy to be overwritten as copy of proto instead of new instance, see {@link DeepCopyModule#deepCopyInto}.
+     * Offer is ignored if classes differ or proto already has an offer.
+     */
+    public void registerReusableCopy(Object proto, Object previousCopy) {
+        if (proto == null || previousCopy == null || proto == previousCopy || proto.getClass() != previousCopy.getClass()) {
+            return;
+        }
+        if (reusableCopies == null) {
+            reusableCopies = new IdentityHashMap<>();
+            claimedReusableCopies = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+        reusableCopies.putIfAbsent(proto, previousCopy);
+    }
+
+    /**
+     * @return object of previous copy offered for proto, or null if there is no offer or offered object is already reused
+     */
+    Object reusableCopyFor(Object proto) {
+        if (reusableCopies == null) {
+            return null;
+        }
+        Object previousCopy = reusableCopies.get(proto);
+        return previousCopy != null && !claimedReusableCopies.contains(previousCopy) ? previousCopy : null;
+    }
+
+    void claimReusableCopy(Object previousCopy) {
+        claimedReusableCopies.add(previousCopy);
+    }
+
+    void setObjectsWithinDepth(Set<Object> objectsWithinDepth) {
+        this.objectsWithinDepth = objectsWithinDepth;
+    }
+
+    boolean isDepthLimited() {
+        return objectsWithinDepth != null;
+    }
+
+    /**
+     * @return true if proto is deeper than max depth of copy, so it's shared instead of copied
+     */
+    boolean isBeyondDepthLimit(Object proto) {
+        return objectsWithinDepth != null && !objectsWithinDepth.contains(proto);
+    }
+
+    int size() {
+        return srcRefToCopyObjectMap.size();
+    }
+
+    /**
+     * Clears context for reuse, grown internal arrays are kept. Identity map clearing is proportional to its capacity,
+     * so map is reallocated when the last copy was much smaller than the biggest one since map allocation.
+     */
+    void clear() {
+        int size = srcRefToCopyObjectMap.size();
+        if (size * 8 < peakSize) {
+            srcRefToCopyObjectMap = new IdentityHashMap<>(size);
+            peakSize = size;
+        } else {
+            srcRefToCopyObjectMap.clear();
+            peakSize = Math.max(peakSize, size);
+        }
+        clearCopyStages();
+    }
+
+    /**
+     * Clears everything but copies, so context can be used to copy more objects sharing copies it already has.
+     */
+    void clearCopyStages() {
+        deferredReferenceObjects.clear();
+        valueDependentDataStructures.clear();
+        pendingConstructions.clear();
+        pendingReferenceObjects.clear();
+        if (pluginData != null) {
+            pluginData.clear();
+        }
+        if (reusableCopies != null) {
+            reusableCopies.clear();
+            claimedReusableCopies.clear();
+        }
+        objectsWithinDepth = null;
+    }
+
+    void registerDeferredReferences(Object proto) {
+        deferredReferenceObjects.add(proto);
+    }
+
+    List<Object> deferredReferenceObjects() {
+        return deferredReferenceObjects;
+    }
+
+    /**
+     * Registers proto which copy is put as {@link #PENDING_CONSTRUCTION}, to be constructed on later stage.
+     */
+    void registerPendingConstruction(Object proto) {
+        pendingConstructions.add(proto);
+    }
+
+    List<Object> pendingConstructions() {
+        return pendingConstructions;
+    }
+
+    /**
+     * Replaces {@link #PENDING_CONSTRUCTION} of proto with constructed copy.
+     */
+    void completeConstruction(Object proto, Object copy) {
+        putCopyInstanceFor(proto, copy);
+    }
+
+    /**
+     * Registers proto which copy got null references to pending constructions, they are set again once constructions are done.
+     */
+    void registerPendingReferences(Object proto) {
+        pendingReferenceObjects.add(proto);
+    }
+
+    List<Object> pendingReferenceObjects() {
+        return pendingReferenceObjects;
+    }
+
+    /**
+     * Drops objects which stages are done already, so usual stages are run for the other objects only.
+     */
+    void removeFromCopyStages(Set<Object> completedObjects) {
+        deferredReferenceObjects.removeIf(completedObjects::contains);
+        valueDependentDataStructures.removeIf(completedObjects::contains);
     }
 
 }
@@ -0,0 +1,44 @@
+package deepcopy;
+
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Copies CopyOnWriteArrayList from its array snapshot, taken once when copy is instantiated. Elements of the snapshot
+ * are instantiated and then replaced by their copies in place, so copy is filled with single array copy
+ * and sees the same elements even if source is modified meanwhile.
+ */
+public class CopyOnWriteArrayListCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == CopyOnWriteArrayList.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        Object[] snapshot = ((CopyOnWriteArrayList<?>) src).toArray();
+        CopyOnWriteArrayList<Object> copy = new CopyOnWriteArrayList<>();
+        context.putCopyInstanceFor(src, copy);
+        if (context.getCopyInstanceFor(src) != copy) {
+            return true;
+        }
+        context.putPluginData(src, snapshot);
+        for (Object value : snapshot) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setReferenceFields(Object src, CopyObjectContext context) {
+        CopyOnWriteArrayList<Object> copyList = (CopyOnWriteArrayList<Object>) context.getCopyInstanceFor(src);
+        Object[] copyElements = (Object[]) context.getPluginData(src);
+        for (int i = 0; i < copyElements.length; i++) {
+            copyElements[i] = context.getCopyInstanceFor(copyElements[i]);
+        }
+        copyList.addAll(Arrays.asList(copyElements));
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package deepcopy;
+
+import java.util.Map;
+
+/**
+ *
+ * Snapshot of statistics collected by instrumented {@link DeepCopyModule} since it was built or statistics were reset.
+ * Phase times are sums over all copies, in nanoseconds. Objects are counted per class name: copied ones
+ * and ones shared with source (wrappers, immutable objects, objects below max depth). Plugin hits are counted
+ * per plugin class name, one hit is one structure instantiated by plugin.
+ *
+ */
+public record CopyStatistics(
+        long copies,
+        long copyToContextNanos,
+        long setReferenceValuesNanos,
+        long fillValueDependentDataStructuresNanos,
+        int maxDepth,
+        Map<String, Long> copiedObjects,
+        Map<String, Long> sharedObjects,
+        Map<String, Long> pluginHits
+) {
+}
@@ -0,0 +1,29 @@
+package deepcopy;
+
+import java.util.Map;
+
+/**
+ *
+ * JMX view of {@link CopyStatistics} of instrumented module, see {@link DeepCopyModule#registerStatisticsMXBean(String)}.
+ *
+ */
+public interface CopyStatisticsMXBean {
+
+    long getCopies();
+
+    long getCopyToContextNanos();
+
+    long getSetReferenceValuesNanos();
+
+    long getFillValueDependentDataStructuresNanos();
+
+    int getMaxDepth();
+
+    Map<String, Long> getCopiedObjects();
+
+    Map<String, Long> getSharedObjects();
+
+    Map<String, Long> getPluginHits();
+
+    void reset();
+}
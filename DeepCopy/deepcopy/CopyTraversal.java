@@ -0,0 +1,141 @@
+package deepcopy;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ *
+ * Worklists of one graph traversal over a copy context. Sequential copy has a single traversal,
+ * parallel copy has one per fork/join task over shared concurrent context.
+ *
+ */
+class CopyTraversal {
+
+    private final CopyObjectContext context;
+    private final CopyWorklist nestedObjects = new CopyWorklist();
+    private final CopyWorklist copiesToFill = new CopyWorklist();
+    private final CopyWorklist pendingConstructions = new CopyWorklist();
+    private final Set<Object> constructionsInProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Nested objects of plugin-handled structure are one level deeper than structure
+    private final Consumer<Object> nestedObjectsInstantiation = object -> nestedObjects.push(object, this.depth + 1);
+    private final UnaryOperator<Object> references;
+    private int depth;
+    private boolean pendingConstructionReferenced;
+
+    CopyTraversal(DeepCopyModule module, CopyObjectContext context) {
+        this.context = context;
+        this.references = object -> {
+            try {
+                return module.copyOf(object, this);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    CopyObjectContext context() {
+        return context;
+    }
+
+    /**
+     * Prepares traversal for the next copy, dropping whatever was left by failed one.
+     */
+    void clear() {
+        nestedObjects.clear();
+        copiesToFill.clear();
+        pendingConstructions.clear();
+        constructionsInProgress.clear();
+        depth = 0;
+        pendingConstructionReferenced = false;
+        context.clear();
+    }
+
+    /**
+     * Source objects which copies are not instantiated yet.
+     */
+    CopyWorklist nestedObjects() {
+        return nestedObjects;
+    }
+
+    /**
+     * Pairs of instantiated copy and its source object (pushed in this order), which fields are not copied yet.
+     * Depth of pair is kept with source object.
+     */
+    CopyWorklist copiesToFill() {
+        return copiesToFill;
+    }
+
+    /**
+     * Depth of objects being copied now, root objects have zero depth.
+     */
+    int depth() {
+        return depth;
+    }
+
+    void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Source objects copied by constructor, which copies wait for copies of their components.
+     */
+    CopyWorklist pendingConstructions() {
+        return pendingConstructions;
+    }
+
+    /**
+     * @return false if construction of object copy is already in progress
+     */
+    boolean startConstruction(Object src) {
+        return constructionsInProgress.add(src);
+    }
+
+    void finishConstruction(Object src) {
+        constructionsInProgress.remove(src);
+    }
+
+    /**
+     * Marks that copy being filled references object which construction is pending.
+     *
+     * @return null, that is reference until construction is done
+     */
+    Object referencePendingConstruction() {
+        pendingConstructionReferenced = true;
+        return null;
+    }
+
+    /**
+     * @return true if pending construction was referenced since previous call
+     */
+    boolean takePendingConstructionReferenced() {
+        boolean referenced = pendingConstructionReferenced;
+        pendingConstructionReferenced = false;
+        return referenced;
+    }
+
+    Consumer<Object> nestedObjectsInstantiation() {
+        return nestedObjectsInstantiation;
+    }
+
+    /**
+     * Function returning copy for source object, copy is created if it doesn't exist yet.
+     */
+    UnaryOperator<Object> references() {
+        return references;
+    }
+
+    /**
+     * Extension point for parallel traversal to split filling of big arrays.
+     *
+     * @return true if array is going to be filled by other traversals
+     */
+    boolean forkArrayFill(Object[] srcArray, Object[] copyArray) {
+        return false;
+    }
+
+}
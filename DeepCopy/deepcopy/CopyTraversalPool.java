@@ -0,0 +1,56 @@
+package deepcopy;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ *
+ * Pool of traversals with their contexts for sequential copy. Reused traversal keeps grown identity map table,
+ * lists and worklists, so repeated copies of small graphs don't pay for their allocation and growth.
+ * Pool is a few lock free slots picked by thread id instead of thread locals, so it doesn't grow
+ * with number of (virtual) threads and never blocks. When slots are empty or full traversal is just created or dropped.
+ *
+ */
+final class CopyTraversalPool {
+
+    // Contexts of huge graphs are not kept to not hold their memory forever
+    private static final int MAX_POOLED_CONTEXT_SIZE = 1 << 16;
+
+    private final DeepCopyModule module;
+    private final AtomicReferenceArray<CopyTraversal> slots;
+    private final int slotsMask;
+
+    CopyTraversalPool(DeepCopyModule module) {
+        this.module = module;
+        int slotsCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(slotsCount);
+        this.slotsMask = slotsCount - 1;
+    }
+
+    CopyTraversal acquire() {
+        int slot = slotIndex();
+        CopyTraversal traversal = slots.getAndSet(slot, null);
+        if (traversal == null) {
+            traversal = slots.getAndSet((slot + 1) & slotsMask, null);
+        }
+        return traversal != null ? traversal : new CopyTraversal(module, new CopyObjectContext());
+    }
+
+    /**
+     * Traversal is released after failed copy too, worklists and context are cleared before it's pooled.
+     */
+    void release(CopyTraversal traversal) {
+        if (traversal.context().size() > MAX_POOLED_CONTEXT_SIZE) {
+            return;
+        }
+        traversal.clear();
+        int slot = slotIndex();
+        if (!slots.compareAndSet(slot, null, traversal)) {
+            slots.compareAndSet((slot + 1) & slotsMask, null, traversal);
+        }
+    }
+
+    private int slotIndex() {
+        long threadId = Thread.currentThread().threadId();
+        return (int) (threadId ^ (threadId >>> 32)) & slotsMask;
+    }
+}
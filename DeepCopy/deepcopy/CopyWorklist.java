@@ -0,0 +1,84 @@
+package deepcopy;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Array based stack of source objects waiting for copy instantiation, each with depth of object in copied graph.
+ * Lives as long as its traversal, so grown array is reused when traversal is reused.
+ *
+ */
+final class CopyWorklist {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+    private int size;
+
+    void push(Object object, int depth) {
+        if (object == null) {
+            return;
+        }
+        if (size == objects.length) {
+            objects = Arrays.copyOf(objects, size << 1);
+            depths = Arrays.copyOf(depths, size << 1);
+        }
+        depths[size] = depth;
+        objects[size++] = object;
+    }
+
+    /**
+     * Depth of object on top of stack.
+     */
+    int depth() {
+        return depths[size - 1];
+    }
+
+    Object peek() {
+        return objects[size - 1];
+    }
+
+    Object pop() {
+        Object object = objects[--size];
+        objects[size] = null;
+        return object;
+    }
+
+    /**
+     * Objects of worklist, the oldest first.
+     */
+    Object[] toArray() {
+        return Arrays.copyOf(objects, size);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Drops entries left by failed copy, grown array is kept.
+     */
+    void clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Moves given number of the oldest entries to other worklist.
+     */
+    void transferTo(CopyWorklist other, int count) {
+        for (int i = 0; i < count; i++) {
+            other.push(objects[i], depths[i]);
+        }
+        System.arraycopy(objects, count, objects, 0, size - count);
+        System.arraycopy(depths, count, depths, 0, size - count);
+        Arrays.fill(objects, size - count, size, null);
+        size -= count;
+    }
+
+}
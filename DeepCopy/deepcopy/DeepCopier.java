@@ -0,0 +1,29 @@
+package deepcopy;
+
+import java.util.function.UnaryOperator;
+
+/**
+ *
+ * Copier of objects of one class, that is generated at build time for {@link DeepCopyable} classes
+ * and discovered by {@link DeepCopyModule} through {@link java.util.ServiceLoader}. Module uses it instead of
+ * reflective field access from the first copy, unless field rules are set for class. Compiled prototypes,
+ * incremental snapshots and copies into previous copy still read reference fields reflectively.
+ *
+ */
+public interface DeepCopier<T> {
+
+    Class<T> type();
+
+    T newInstance();
+
+    /**
+     * Copies primitive fields of src to copy.
+     */
+    void copyValueFields(T src, T copy);
+
+    /**
+     * Sets reference fields of copy with objects returned by references function for corresponding src field values.
+     */
+    void copyReferenceFields(T src, T copy, UnaryOperator<Object> references);
+
+}
@@ -1,10 +1,13 @@
 package deepcopy;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.*;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
@@ -12,17 +15,47 @@ import java.util.function.UnaryOperator;
 public class DeepCopyModule {
 
     private final Set<String> wrapperClassNames;
+    private final Set<String> constructorCopiedClassNames;
     private final List<Predicate<Class<?>>> wrapperClassPredicates;
     private final Map<String, UnaryOperator<?>> customCopyFunctions;
     private final Map<String, Supplier<?>> classInstanceSuppliers;
     private final List<DeepCopyModulePlugin> copyPlugins;
+    private final int copierSpecializationThreshold;
+    private final ForkJoinPool forkJoinPool;
+    private final int parallelForkThreshold;
+    private final ImmutabilityAnalyzer immutabilityAnalyzer;
+    private final FieldRules fieldRules;
+    private final int maxDepth;
+    private final Map<Class<?>, DeepCopier<?>> generatedCopiers;
+    // Null when statistics are not collected
+    private final CopyInstrumentation instrumentation;
+    private final CopyTraversalPool traversalPool = new CopyTraversalPool(this);
+    private final ClassValue<ClassCopyPlan> copyPlans = new ClassValue<>() {
+        @Override
+        protected ClassCopyPlan computeValue(Class<?> type) {
+            ClassCopyPlan plan = resolveCopyPlan(type);
+            if (instrumentation != null) {
+                plan.setCounters(instrumentation.countersFor(plan));
+            }
+            return plan;
+        }
+    };
 
-    private DeepCopyModule(Set<String> wrapperClassNames, List<Predicate<Class<?>>> wrapperClassPredicates, Map<String, UnaryOperator<?>> customCopyFunctions, Map<String, Supplier<?>> classInstanceSuppliers, List<DeepCopyModulePlugin> copyPlugins) {
+    private DeepCopyModule(Set<String> wrapperClassNames, Set<String> constructorCopiedClassNames, List<Predicate<Class<?>>> wrapperClassPredicates, Map<String, UnaryOperator<?>> customCopyFunctions, Map<String, Supplier<?>> classInstanceSuppliers, List<DeepCopyModulePlugin> copyPlugins, int copierSpecializationThreshold, ForkJoinPool forkJoinPool, int parallelForkThreshold, boolean immutabilityAnalysis, FieldRules fieldRules, int maxDepth, Map<Class<?>, DeepCopier<?>> generatedCopiers, boolean collectStatistics) {
         this.wrapperClassNames = wrapperClassNames;
+        this.constructorCopiedClassNames = constructorCopiedClassNames;
         this.wrapperClassPredicates = wrapperClassPredicates;
         this.customCopyFunctions = customCopyFunctions;
         this.classInstanceSuppliers = classInstanceSuppliers;
         this.copyPlugins = copyPlugins;
+        this.copierSpecializationThreshold = copierSpecializationThreshold;
+        this.forkJoinPool = forkJoinPool;
+        this.parallelForkThreshold = parallelForkThreshold;
+        this.immutabilityAnalyzer = immutabilityAnalysis ? new ImmutabilityAnalyzer(this::isWrapper) : null;
+        this.fieldRules = fieldRules;
+        this.maxDepth = maxDepth;
+        this.generatedCopiers = generatedCopiers;
+        this.instrumentation = collectStatistics ? new CopyInstrumentation() : null;
     }
 
     public static DeepCopyModule.Builder builder() {
@@ -33,191 +66,729 @@ public class DeepCopyModule {
         if (src == null) {
             return null;
         }
-        CopyObjectContext context = new CopyObjectContext();
+        CopyTraversal traversal = acquireTraversal();
+        try {
+            traversal.nestedObjects().push(src, 0);
+            copyGraph(traversal, src.getClass(), 1, true);
+            return (T) traversal.context().getCopyInstanceFor(src);
+        } finally {
+            releaseTraversal(traversal);
+        }
+    }
 
-        instantiateCopyToContext(src, context);
-        setReferenceValues(context);
-        fillValueDependentDataStructures(context);
+    /**
+     * Copies all objects of collection as one graph, so objects shared between them are shared between their copies too.
+     * It's also cheaper than separate deepCopy() call for each of many small objects.
+     *
+     * @return copies in iteration order of srcObjects
+     */
+    public <T> List<T> deepCopyAll(Collection<? extends T> srcObjects) throws Exception {
+        CopyTraversal traversal = acquireTraversal();
+        try {
+            CopyObjectContext context = traversal.context();
+            Class<?> rootClass = null;
+            for (T src : srcObjects) {
+                traversal.nestedObjects().push(src, 0);
+                if (src != null) {
+                    rootClass = rootClass == null || rootClass == src.getClass() ? src.getClass() : Object.class;
+                }
+            }
+            copyGraph(traversal, rootClass, srcObjects.size(), true);
 
-        return (T) context.getCopyInstanceFor(src);
+            List<T> copies = new ArrayList<>(srcObjects.size());
+            for (T src : srcObjects) {
+                copies.add((T) context.getCopyInstanceFor(src));
+            }
+            return copies;
+        } finally {
+            releaseTraversal(traversal);
+        }
     }
 
-    private boolean isWrapper(Class<?> type) {
-        return wrapperClassNames.contains(type.getName()) || wrapperClassPredicates.stream().anyMatch(wp -> wp.test(type));
+    /**
+     * Copies src overwriting objects of target, previous copy of the same-shaped graph, instead of allocating new ones.
+     * Source graph and target graph are walked together: object fields are overwritten in place, arrays of the same length
+     * and JDK collections are reused, new objects are instantiated only where shape of graphs differs.
+     * Target graph is given up for that, none of its objects must be used after call, except returned copy,
+     * and it must not share mutable objects with src. Copy is always made sequentially.
+     *
+     * @return copy of src, that is target if it could be reused
+     */
+    public <T> T deepCopyInto(T src, T target) throws Exception {
+        if (src == null) {
+            return null;
+        }
+        if (src == target) {
+            throw new IllegalArgumentException("Object can't be copied into itself");
+        }
+        CopyTraversal traversal = traversalPool.acquire();
+        try {
+            traversal.context().registerReusableCopy(src, target);
+            traversal.nestedObjects().push(src, 0);
+            copyGraph(traversal, src.getClass(), 1, false);
+            return (T) traversal.context().getCopyInstanceFor(src);
+        } finally {
+            traversalPool.release(traversal);
+        }
     }
 
-    private <T> UnaryOperator<T> customCopyFunction(Class<T> srcClass) {
-        return (UnaryOperator<T>) customCopyFunctions.get(srcClass.getName());
+    /**
+     * Records prototype graph once, so its copies are made by {@link CompiledPrototype#newInstance()} without graph discovery.
+     * Prototype is copied on compilation, later changes of prototype don't affect new instances.
+     */
+    public <T> CompiledPrototype<T> compile(T prototype) throws Exception {
+        if (prototype == null) {
+            throw new IllegalArgumentException("Prototype can't be null");
+        }
+        return CompiledPrototype.compile(this, deepCopy(prototype));
     }
 
-    private <T> void instantiateCopyToContext(T src, CopyObjectContext context) throws Exception {
-        if (src == null || context.exists(src)) {
-            return;
+    /**
+     * Starts series of snapshots of src, where each snapshot re-copies only objects changed since previous one
+     * and shares unchanged subgraphs with it, see {@link IncrementalSnapshots}. Snapshot saves allocation only:
+     * every reachable object is still read and compared with its previous copy to find changes, that takes about
+     * as much CPU time as full copy, but unchanged objects are not allocated again and snapshots share their memory.
+     */
+    public <T> IncrementalSnapshots<T> incrementalSnapshots(T src) {
+        if (src == null) {
+            throw new IllegalArgumentException("Source can't be null");
         }
+        return new IncrementalSnapshots<>(this, src);
+    }
 
-        Class<T> srcClass = (Class<T>) src.getClass();
+    /**
+     * Statistics collected since module was built or statistics were reset, see {@link Builder#collectStatistics(boolean)}.
+     */
+    public CopyStatistics statistics() {
+        return requireInstrumentation().snapshot();
+    }
 
-        var copyFunction = customCopyFunction(srcClass);
-        if (copyFunction != null) {
-            T newObject = copyFunction.apply(src);
-            context.putCopyInstanceFor(src, newObject);
-            return;
+    public void resetStatistics() {
+        requireInstrumentation().reset();
+    }
+
+    /**
+     * Registers statistics of module in platform MBean server as MXBean named deepcopy:type=DeepCopyModule,name="name".
+     *
+     * @return name of registered MXBean, that is used to unregister it
+     */
+    public ObjectName registerStatisticsMXBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("deepcopy:type=DeepCopyModule,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(requireInstrumentation(), objectName);
+        return objectName;
+    }
+
+    /**
+     * @return instrumentation of module, null if statistics are not collected
+     */
+    CopyInstrumentation instrumentation() {
+        return instrumentation;
+    }
+
+    private CopyInstrumentation requireInstrumentation() {
+        if (instrumentation == null) {
+            throw new IllegalStateException("Statistics are not collected by module");
         }
+        return instrumentation;
+    }
 
-        if (srcClass.isArray() && srcClass.getComponentType().isPrimitive()) {
-            int length = Array.getLength(src);
+    private CopyTraversal acquireTraversal() {
+        if (forkJoinPool != null) {
+            return new CopyTraversal(this, new ConcurrentCopyObjectContext());
+        }
+        return traversalPool.acquire();
+    }
 
-            Object newArray = Array.newInstance(srcClass.getComponentType(), length);
-            System.arraycopy(src, 0, newArray, 0, length);
+    private void releaseTraversal(CopyTraversal traversal) {
+        if (forkJoinPool == null) {
+            traversalPool.release(traversal);
+        }
+    }
 
-            context.putCopyInstanceFor(src, newArray);
-            return;
+    private ClassCopyPlan resolveCopyPlan(Class<?> type) {
+        UnaryOperator<Object> copyFunction = (UnaryOperator<Object>) customCopyFunctions.get(type.getName());
+        if (copyFunction != null) {
+            return new ClassCopyPlan(type, ClassCopyPlan.Strategy.CUSTOM_FUNCTION, copyFunction, null, copierSpecializationThreshold, fieldRules, null);
+        }
+        if (type.isArray()) {
+            Class<?> componentType = type.getComponentType();
+            // Elements of final shared class can't be of other class, that could be copied by function or plugin
+            boolean valueArray = componentType.isPrimitive()
+                    || (Modifier.isFinal(componentType.getModifiers()) && copyPlans.get(componentType).strategy() == ClassCopyPlan.Strategy.SHARED);
+            return new ClassCopyPlan(type, valueArray ? ClassCopyPlan.Strategy.VALUE_ARRAY : ClassCopyPlan.Strategy.OBJECT_ARRAY, null, null, copierSpecializationThreshold, fieldRules, null);
+        }
+        if (isWrapper(type)) {
+            return new ClassCopyPlan(type, ClassCopyPlan.Strategy.SHARED, null, null, copierSpecializationThreshold, fieldRules, null);
         }
+        if (ImmutableCollectionCopier.isImmutableCollection(type)) {
+            // Generic collection plugins would take them otherwise, and they can't be instantiated empty
+            return new ClassCopyPlan(type, ClassCopyPlan.Strategy.CONSTRUCTOR, null, null, copierSpecializationThreshold, fieldRules, null);
+        }
+        boolean constructorCopied = type.isRecord() || constructorCopiedClassNames.contains(type.getName());
+        // Plugins asked per object can't replace constructor, objects they don't support would be copied field by field
+        DeepCopyModulePlugin[] supportingPlugins = copyPlugins.stream()
+                .filter(plugin -> plugin.supports(type) && !(constructorCopied && plugin instanceof PerObjectSupportPlugin))
+                .toArray(DeepCopyModulePlugin[]::new);
+        if (supportingPlugins.length > 0) {
+            return new ClassCopyPlan(type, ClassCopyPlan.Strategy.PLUGIN, null, supportingPlugins, copierSpecializationThreshold, fieldRules, null);
+        }
+        if (immutabilityAnalyzer != null && immutabilityAnalyzer.isDeeplyImmutable(type)) {
+            return new ClassCopyPlan(type, ClassCopyPlan.Strategy.SHARED, null, null, copierSpecializationThreshold, fieldRules, null);
+        }
+        if (constructorCopied) {
+            return new ClassCopyPlan(type, ClassCopyPlan.Strategy.CONSTRUCTOR, null, null, copierSpecializationThreshold, fieldRules, null);
+        }
+        // Generated copier knows nothing of field rules, so they take precedence
+        DeepCopier<Object> generatedCopier = (DeepCopier<Object>) generatedCopiers.get(type);
+        if (generatedCopier != null && fieldRules.hasRulesFor(type)) {
+            generatedCopier = null;
+        }
+        return new ClassCopyPlan(type, ClassCopyPlan.Strategy.REFLECTIVE, null, null, copierSpecializationThreshold, fieldRules, generatedCopier);
+    }
 
-        if (srcClass.isArray()) {
-            Object[] srcAsArray = (Object[]) src;
-            Object newArray = Array.newInstance(srcClass.getComponentType(), srcAsArray.length);
-            context.putCopyInstanceFor(src, newArray);
+    int maxDepth() {
+        return maxDepth;
+    }
 
-            for (Object object : srcAsArray) {
-                instantiateCopyToContext(object, context);
-            }
+    ClassCopyPlan copyPlan(Class<?> type) {
+        return copyPlans.get(type);
+    }
+
+    private boolean isWrapper(Class<?> type) {
+        return wrapperClassNames.contains(type.getName()) || wrapperClassPredicates.stream().anyMatch(wp -> wp.test(type));
+    }
+
+    /**
+     * Copies all objects reachable from objects queued to traversal in a single pass. Copy instance is created as soon as object is discovered,
+     * so references to it are set right away, even for back references of cyclic graphs, and object is queued to copy its own fields.
+     * Graph is traversed with explicit worklists instead of recursion, so depth of graph is limited by heap only.
+     * Only plugin-handled structures are left for {@link #setReferenceValues}, as plugins fill them by their own API after instantiation.
+     */
+    private void copyToContext(CopyTraversal traversal, boolean parallel) throws Exception {
+        CopyObjectContext context = traversal.context();
+        if (maxDepth != Integer.MAX_VALUE && !context.isDepthLimited()) {
+            context.setObjectsWithinDepth(objectsWithinDepth(traversal.nestedObjects().toArray()));
+        }
+        if (parallel && forkJoinPool != null) {
+            ParallelCopyTask.copy(this, traversal, forkJoinPool, parallelForkThreshold);
             return;
         }
+        while (copyNext(traversal)) {
+            // Everything is done by copyNext()
+        }
+    }
 
-        if (isWrapper(srcClass)) {
-            context.putCopyInstanceFor(src, src);
+    /**
+     * Runs all copy stages over objects queued to traversal, timing them if module is instrumented.
+     *
+     * @param rootClass class of root for statistics, see {@link CopyInstrumentation#copyFinished}
+     * @param parallel false if copy must be sequential even if module copies in parallel
+     */
+    void copyGraph(CopyTraversal traversal, Class<?> rootClass, int roots, boolean parallel) throws Exception {
+        CopyObjectContext context = traversal.context();
+        if (instrumentation == null) {
+            copyToContext(traversal, parallel);
+            completeCopies(context);
             return;
         }
+        CopyEvent event = instrumentation.copyStarted();
+        long start = System.nanoTime();
+        copyToContext(traversal, parallel);
+        long copiedToContext = System.nanoTime();
+        // Pending constructions run stages of their subgraphs as well, they are timed as reference setting
+        constructPendingCopies(context);
+        setReferenceValues(context);
+        long referencesSet = System.nanoTime();
+        fillValueDependentDataStructures(context);
+        instrumentation.copyFinished(event, rootClass, roots, context.size(), start, copiedToContext, referencesSet, System.nanoTime());
+    }
 
-        for (DeepCopyModulePlugin plugin : copyPlugins) {
-            if (plugin.supports(src)) {
-                boolean proceed = plugin.instantiateCopyObjects(src, context, (Object object) -> {
-                    try {
-                        this.instantiateCopyToContext(object, context);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-                if (proceed) {
-                    return;
+    /**
+     * Makes one step of traversal: fills fields of one instantiated copy or instantiates one queued nested object.
+     *
+     * @return false if there is nothing left to copy in traversal
+     */
+    boolean copyNext(CopyTraversal traversal) throws Exception {
+        CopyWorklist copiesToFill = traversal.copiesToFill();
+        if (!copiesToFill.isEmpty()) {
+            // Fields of object reference objects one level deeper
+            traversal.setDepth(copiesToFill.depth() + 1);
+            Object srcObject = copiesToFill.pop();
+            Object copy = copiesToFill.pop();
+            ClassCopyPlan plan = copyPlans.get(srcObject.getClass());
+            if (plan.strategy() == ClassCopyPlan.Strategy.OBJECT_ARRAY) {
+                Object[] srcAsArray = (Object[]) srcObject;
+                Object[] newArray = (Object[]) copy;
+                if (!traversal.forkArrayFill(srcAsArray, newArray)) {
+                    fillArrayElements(srcAsArray, newArray, 0, srcAsArray.length, traversal);
+                }
+            } else {
+                plan.copier().copyReferenceFields(srcObject, copy, traversal.references());
+                if (traversal.takePendingConstructionReferenced()) {
+                    traversal.context().registerPendingReferences(srcObject);
                 }
             }
+            return true;
         }
+        if (!traversal.nestedObjects().isEmpty()) {
+            traversal.setDepth(traversal.nestedObjects().depth());
+            copyOf(traversal.nestedObjects().pop(), traversal);
+            return true;
+        }
+        return false;
+    }
 
-        T newObject = objectInstance(srcClass);
-        context.putCopyInstanceFor(src, newObject);
-
-        for (Field field : new FieldsWithValue(src)) {
+    void fillArrayElements(Object[] srcArray, Object[] copyArray, int from, int to, CopyTraversal traversal) throws Exception {
+        for (int i = from; i < to; i++) {
+            copyArray[i] = copyOf(srcArray[i], traversal);
+        }
+        if (traversal.takePendingConstructionReferenced()) {
+            traversal.context().registerPendingReferences(srcArray);
+        }
+    }
 
-            if (field.getType().isPrimitive()) {
-                field.set(newObject, field.get(src));
-                continue;
+    /**
+     * Returns copy of src creating it if it doesn't exist yet. Nested objects of created copy are not copied here,
+     * but queued to traversal worklists.
+     */
+    Object copyOf(Object src, CopyTraversal traversal) throws Exception {
+        if (src == null) {
+            return null;
+        }
+        CopyObjectContext context = traversal.context();
+        Object copy = context.findCopyInstance(src);
+        if (copy != null) {
+            return foundCopy(copy, traversal);
+        }
+        if (context.isBeyondDepthLimit(src)) {
+            if (instrumentation != null) {
+                instrumentation.objectReached(copyPlans.get(src.getClass()), true, traversal.depth());
             }
-            instantiateCopyToContext(field.get(src), context);
+            // Registered so plugins resolve references to shared object as well
+            return context.putCopyInstanceIfAbsent(src, src);
         }
 
-    }
-
-    private <T> T objectInstance(Class<T> cls) throws InvocationTargetException, InstantiationException, IllegalAccessException {
-        if (classInstanceSuppliers.containsKey(cls.getName())) {
-            return (T) classInstanceSuppliers.get(cls.getName()).get();
+        ClassCopyPlan plan = copyPlans.get(src.getClass());
+        if (instrumentation != null) {
+            instrumentation.objectReached(plan, plan.strategy() == ClassCopyPlan.Strategy.SHARED, traversal.depth());
+        }
+        Object previousCopy = context.reusableCopyFor(src);
+        if (previousCopy != null && reuseCopy(src, previousCopy, plan, traversal)) {
+            return previousCopy;
         }
 
-        try {
-            Constructor<T> constructor = cls.getDeclaredConstructor();
-            constructor.setAccessible(true);
-            return constructor.newInstance();
-        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException ex) {
-            Constructor<T> constructor = (Constructor<T>) cls.getDeclaredConstructors()[0];
-            constructor.setAccessible(true);
-            Class<?>[] paramClasses = constructor.getParameterTypes();
-            Object[] params = new Object[paramClasses.length];
-            for (int i = 0; i < paramClasses.length; i++) {
-                if (paramClasses[i].isPrimitive()) {
-                    if (paramClasses[i].equals(Boolean.TYPE)) params[i] = false;
-                    else params[i] = (byte) 0b0;
-                } else {
-                    params[i] = null;
+        boolean fillRequired = false;
+        switch (plan.strategy()) {
+            case CUSTOM_FUNCTION -> copy = plan.copyFunction().apply(src);
+            case VALUE_ARRAY -> {
+                int length = Array.getLength(src);
+
+                copy = Array.newInstance(plan.type().getComponentType(), length);
+                System.arraycopy(src, 0, copy, 0, length);
+            }
+            case OBJECT_ARRAY -> {
+                copy = Array.newInstance(plan.type().getComponentType(), ((Object[]) src).length);
+                fillRequired = true;
+            }
+            case SHARED -> copy = src;
+            case PLUGIN -> {
+                DeepCopyModulePlugin[] plugins = plan.plugins();
+                for (int i = 0; i < plugins.length; i++) {
+                    if (plugins[i].instantiateCopyObjects(src, context, traversal.nestedObjectsInstantiation())) {
+                        if (instrumentation != null) {
+                            instrumentation.pluginHit(plan, i);
+                        }
+                        context.registerDeferredReferences(src);
+                        return context.getCopyInstanceFor(src);
+                    }
                 }
+                copy = objectCopy(src, plan);
+                fillRequired = true;
+            }
+            case REFLECTIVE -> {
+                copy = objectCopy(src, plan);
+                fillRequired = true;
             }
-            return constructor.newInstance(params);
+            case CONSTRUCTOR -> {
+                return constructCopy(src, traversal);
+            }
+        }
+
+        Object contextCopy = context.putCopyInstanceIfAbsent(src, copy);
+        if (fillRequired && contextCopy == copy) {
+            traversal.copiesToFill().push(copy, traversal.depth());
+            traversal.copiesToFill().push(src, traversal.depth());
         }
+        return contextCopy;
     }
 
-    private void setReferenceValues(CopyObjectContext context) throws IllegalAccessException {
-        List<Object> srcObjectsList = context.srcObjectsAsList();
+    /**
+     * @param copy copy found in context, not null
+     * @return copy to reference, null for objects copied to null and for pending constructions
+     */
+    private static Object foundCopy(Object copy, CopyTraversal traversal) {
+        if (copy == CopyObjectContext.PENDING_CONSTRUCTION) {
+            return traversal.referencePendingConstruction();
+        }
+        return copy != CopyObjectContext.NULL_COPY ? copy : null;
+    }
 
-        for (Object srcObject : srcObjectsList) {
-            Class<?> objectClass = srcObject.getClass();
-            if (customCopyFunction(objectClass) != null) {
-                continue;
+    /**
+     * Overwrites object of previous copy to make it copy of src. Nested objects of previous copy are offered
+     * for nested objects of src at the same positions.
+     *
+     * @return false if previous copy can't be reused for src
+     */
+    private boolean reuseCopy(Object src, Object previousCopy, ClassCopyPlan plan, CopyTraversal traversal) throws Exception {
+        CopyObjectContext context = traversal.context();
+        switch (plan.strategy()) {
+            case VALUE_ARRAY -> {
+                int length = Array.getLength(src);
+                if (Array.getLength(previousCopy) != length) {
+                    return false;
+                }
+                System.arraycopy(src, 0, previousCopy, 0, length);
+                context.putCopyInstanceFor(src, previousCopy);
             }
-            if (isWrapper(objectClass) || (objectClass.isArray() && objectClass.getComponentType().isPrimitive())) {
-                continue;
+            case OBJECT_ARRAY -> {
+                Object[] srcArray = (Object[]) src;
+                Object[] previousArray = (Object[]) previousCopy;
+                if (previousArray.length != srcArray.length) {
+                    return false;
+                }
+                for (int i = 0; i < srcArray.length; i++) {
+                    context.registerReusableCopy(srcArray[i], previousArray[i]);
+                }
+                context.putCopyInstanceFor(src, previousCopy);
+                traversal.copiesToFill().push(previousCopy, traversal.depth());
+                traversal.copiesToFill().push(src, traversal.depth());
             }
-            if (objectClass.isArray()) {
-                Object[] srcAsArray = (Object[]) srcObject;
-                Object[] newArray = (Object[]) context.getCopyInstanceFor(srcAsArray);
-                for (int i = 0; i < srcAsArray.length; i++) {
-                    newArray[i] = context.getCopyInstanceFor(srcAsArray[i]);
+            case PLUGIN -> {
+                for (DeepCopyModulePlugin plugin : plan.plugins()) {
+                    if (plugin.reuseCopyObject(src, previousCopy, context, traversal.nestedObjectsInstantiation())) {
+                        context.registerDeferredReferences(src);
+                        context.claimReusableCopy(previousCopy);
+                        return true;
+                    }
                 }
-                continue;
+                return false;
             }
-
-            boolean proceedByPlugin = false;
-            for (DeepCopyModulePlugin plugin : copyPlugins) {
-                if (plugin.supports(srcObject)) {
-                    proceedByPlugin = plugin.setReferenceFields(srcObject, context);
-                    if (proceedByPlugin) {
-                        break;
+            case REFLECTIVE -> {
+                plan.countCopy();
+                plan.copier().copyValueFields(src, previousCopy);
+                for (FieldAccessor field : plan.referenceFields()) {
+                    context.registerReusableCopy(field.get(src), field.get(previousCopy));
+                }
+                context.putCopyInstanceFor(src, previousCopy);
+                traversal.copiesToFill().push(previousCopy, traversal.depth());
+                traversal.copiesToFill().push(src, traversal.depth());
+            }
+            case CONSTRUCTOR -> {
+                // Object itself can't be overwritten, but its components can still be reused by new one
+                ConstructorCopier copier = plan.constructorCopier();
+                Object[] components = copier.components(src);
+                Object[] previousComponents = copier.components(previousCopy);
+                for (int i = 0; i < Math.min(components.length, previousComponents.length); i++) {
+                    if (copier.isReference(i)) {
+                        context.registerReusableCopy(components[i], previousComponents[i]);
                     }
                 }
+                return false;
             }
-            if (proceedByPlugin) {
-                continue;
+            default -> {
+                return false;
             }
+        }
+        context.claimReusableCopy(previousCopy);
+        return true;
+    }
 
-            for (Field field : new FieldsWithValue(srcObject)) {
-                if (field.getType().isPrimitive()) {
+    /**
+     * Copies object by constructor once copies of its components are complete, as constructor may read them,
+     * e.g. compact constructor of record taking copy of its list. Components copied by constructor too are
+     * constructed before it, using traversal stack instead of recursion. If all components are complete as soon as
+     * they are copied, i.e. shared, value arrays, results of custom functions or constructed objects, object is constructed
+     * at once. Otherwise construction is left pending till its components are filled, see {@link PendingConstructions},
+     * and references to it are set then. Object can't be constructed if it's reachable from its own components
+     * through objects copied by constructor only.
+     */
+    private Object constructCopy(Object src, CopyTraversal traversal) throws Exception {
+        CopyObjectContext context = traversal.context();
+        CopyWorklist pendingConstructions = traversal.pendingConstructions();
+        int depth = traversal.depth();
+        int bottom = pendingConstructions.size();
+        pendingConstructions.push(src, depth);
+        traversal.startConstruction(src);
+        while (pendingConstructions.size() > bottom) {
+            Object pending = pendingConstructions.peek();
+            int pendingDepth = pendingConstructions.depth();
+            ConstructorCopier copier = copyPlans.get(pending.getClass()).constructorCopier();
+            Object[] components = copier.components(pending);
+            traversal.setDepth(pendingDepth + 1);
+            Object unconstructedComponent = null;
+            boolean componentsComplete = true;
+            for (int i = 0; i < components.length && unconstructedComponent == null; i++) {
+                Object component = components[i];
+                if (!copier.isReference(i) || component == null) {
                     continue;
                 }
-                Object copyObject = context.getCopyInstanceFor(srcObject);
-                field.set(copyObject, context.getCopyInstanceFor(field.get(srcObject)));
+                ClassCopyPlan componentPlan = copyPlans.get(component.getClass());
+                if (!context.isBeyondDepthLimit(component) && componentPlan.strategy() == ClassCopyPlan.Strategy.CONSTRUCTOR && !context.exists(component)) {
+                    if (!traversal.startConstruction(component)) {
+                        throw new IllegalStateException("Object of " + component.getClass().getName()
+                                + " copied by constructor references itself through objects copied by constructor");
+                    }
+                    Object previousCopy = context.reusableCopyFor(component);
+                    if (previousCopy != null) {
+                        // Only offers components of previous copy to components of component, as copyOf() would do
+                        reuseCopy(component, previousCopy, componentPlan, traversal);
+                    }
+                    if (instrumentation != null) {
+                        instrumentation.objectReached(componentPlan, false, pendingDepth + 1);
+                    }
+                    pendingConstructions.push(component, pendingDepth + 1);
+                    unconstructedComponent = component;
+                } else {
+                    components[i] = copyOf(component, traversal);
+                    componentsComplete &= isCompleteCopy(component, components[i], componentPlan);
+                }
+            }
+            if (unconstructedComponent == null) {
+                pendingConstructions.pop();
+                traversal.finishConstruction(pending);
+                if (componentsComplete) {
+                    context.putCopyInstanceIfAbsent(pending, copier.construct(pending, components));
+                } else if (context.putCopyInstanceIfAbsent(pending, CopyObjectContext.PENDING_CONSTRUCTION) == CopyObjectContext.PENDING_CONSTRUCTION) {
+                    context.registerPendingConstruction(pending);
+                }
             }
         }
+        traversal.setDepth(depth);
+        return foundCopy(context.findCopyInstance(src), traversal);
     }
 
-    private void fillValueDependentDataStructures(CopyObjectContext context) {
+    /**
+     * @return true if copy returned by copyOf() is complete already, so constructor may read it
+     */
+    private static boolean isCompleteCopy(Object src, Object copy, ClassCopyPlan plan) {
+        return switch (plan.strategy()) {
+            case SHARED, VALUE_ARRAY, CUSTOM_FUNCTION -> true;
+            // Null is copy of pending construction
+            case CONSTRUCTOR -> copy != null;
+            // Source object itself is shared below depth limit
+            default -> copy == src;
+        };
+    }
+
+    Object objectCopy(Object src, ClassCopyPlan plan) throws Exception {
+        Object newObject = objectInstance(plan);
+
+        plan.countCopy();
+        plan.copier().copyValueFields(src, newObject);
+        return newObject;
+    }
+
+    private Object objectInstance(ClassCopyPlan plan) throws ReflectiveOperationException {
+        Class<?> cls = plan.type();
+        if (classInstanceSuppliers.containsKey(cls.getName())) {
+            return classInstanceSuppliers.get(cls.getName()).get();
+        }
+        if (plan.generatedCopier() != null) {
+            return plan.generatedCopier().newInstance();
+        }
+        return plan.newInstance();
+    }
+
+    /**
+     * Runs all stages after traversal: constructions left pending, deferred references and value dependent structures.
+     */
+    private void completeCopies(CopyObjectContext context) throws Exception {
+        constructPendingCopies(context);
+        setReferenceValues(context);
+        fillValueDependentDataStructures(context);
+    }
+
+    /**
+     * Constructs copies left pending by {@link #constructCopy}. Stages of objects reachable from them are run on the way,
+     * so they are dropped from context stages.
+     */
+    private void constructPendingCopies(CopyObjectContext context) throws Exception {
+        if (!context.pendingConstructions().isEmpty()) {
+            new PendingConstructions(this, context).construct();
+        }
+    }
+
+    void setReferenceValues(CopyObjectContext context) throws Exception {
+        List<Object> deferredReferenceObjects = context.deferredReferenceObjects();
+        if (forkJoinPool != null && deferredReferenceObjects.size() > parallelForkThreshold) {
+            // Each plugin sets references of its own copy only, so there is no ordering between structures
+            forkJoinPool.submit(() -> deferredReferenceObjects.parallelStream().forEach(srcObject -> {
+                try {
+                    setDeferredReferences(srcObject, context);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            })).join();
+            return;
+        }
+        for (Object srcObject : deferredReferenceObjects) {
+            setDeferredReferences(srcObject, context);
+        }
+    }
+
+    void setDeferredReferences(Object srcObject, CopyObjectContext context) throws IllegalAccessException {
+        ClassCopyPlan plan = copyPlans.get(srcObject.getClass());
+        boolean proceedByPlugin = false;
+        for (DeepCopyModulePlugin plugin : plan.plugins()) {
+            proceedByPlugin = plugin.setReferenceFields(srcObject, context);
+            if (proceedByPlugin) {
+                break;
+            }
+        }
+        if (!proceedByPlugin) {
+            plan.copier().copyReferenceFields(srcObject, context.getCopyInstanceFor(srcObject), context::getCopyInstanceFor);
+        }
+    }
+
+    void fillValueDependentDataStructures(CopyObjectContext context) {
         // As structures are put from the highest level of object to the deepest one
         // data structures should be filled from end to start of list.
         // In case of using them in hashCode(), equals() and compare() calculation for higher level structures.
+        // That's also the reason why structures are filled sequentially even in parallel copy.
         List<Object> srcObjectsList = context.srcValueDependentDataStructures().reversed();
 
         for (Object srcDataStructure : srcObjectsList) {
-            Class<?> structureClass = srcDataStructure.getClass();
-            if (customCopyFunction(structureClass) != null) {
-                continue;
+            fillValueDependentDataStructure(srcDataStructure, context);
+        }
+    }
+
+    void fillValueDependentDataStructure(Object srcDataStructure, CopyObjectContext context) {
+        ClassCopyPlan plan = copyPlans.get(srcDataStructure.getClass());
+        if (plan.strategy() != ClassCopyPlan.Strategy.PLUGIN) {
+            return;
+        }
+
+        for (DeepCopyModulePlugin plugin : plan.plugins()) {
+            boolean proceed = plugin.fillValueDependentDataStructure(srcDataStructure, context);
+            if (proceed) {
+                break;
             }
+        }
+    }
 
-            for (DeepCopyModulePlugin plugin : copyPlugins) {
-                if (plugin.supports(srcDataStructure)) {
-                    boolean proceed = plugin.fillValueDependentDataStructure(srcDataStructure, context);
-                    if (proceed) {
-                        break;
+    /**
+     * Finds objects reachable from roots by at most maxDepth references. Graph is walked breadth first, so object reachable
+     * by several paths is found at the length of the shortest one, whatever order copy reaches it in then.
+     */
+    Set<Object> objectsWithinDepth(Object[] roots) throws Exception {
+        Set<Object> objectsWithinDepth = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Object> level = new ArrayList<>();
+        for (Object root : roots) {
+            if (objectsWithinDepth.add(root)) {
+                level.add(root);
+            }
+        }
+        for (int depth = 0; depth < maxDepth && !level.isEmpty(); depth++) {
+            List<Object> nextLevel = new ArrayList<>();
+            for (Object object : level) {
+                for (Object reference : referencedObjects(object)) {
+                    if (reference != null && objectsWithinDepth.add(reference)) {
+                        nextLevel.add(reference);
                     }
                 }
             }
+            level = nextLevel;
+        }
+        return objectsWithinDepth;
+    }
+
+    /**
+     * Objects which copies are referenced by copy of object, as copy reaches them.
+     */
+    private Object[] referencedObjects(Object object) throws Exception {
+        ClassCopyPlan plan = copyPlans.get(object.getClass());
+        switch (plan.strategy()) {
+            case OBJECT_ARRAY -> {
+                return (Object[]) object;
+            }
+            case PLUGIN -> {
+                Object[] elements = structureElements(object, plan);
+                return elements != null ? elements : referenceFieldValues(object, plan);
+            }
+            case REFLECTIVE -> {
+                return referenceFieldValues(object, plan);
+            }
+            case CONSTRUCTOR -> {
+                ConstructorCopier copier = plan.constructorCopier();
+                Object[] components = copier.components(object);
+                for (int i = 0; i < components.length; i++) {
+                    if (!copier.isReference(i)) {
+                        components[i] = null;
+                    }
+                }
+                return components;
+            }
+            default -> {
+                // Shared objects and objects copied as a whole reference no copies
+                return new Object[0];
+            }
+        }
+    }
+
+    private static Object[] referenceFieldValues(Object object, ClassCopyPlan plan) throws Exception {
+        FieldAccessor[] referenceFields = plan.referenceFields();
+        Object[] references = new Object[referenceFields.length];
+        for (int i = 0; i < referenceFields.length; i++) {
+            references[i] = referenceFields[i].get(object);
+        }
+        return references;
+    }
+
+    /**
+     * Elements of plugin-handled structure as plugin reports them.
+     *
+     * @return null if none of plugins handles object, it's copied field by field then
+     */
+    Object[] structureElements(Object object, ClassCopyPlan plan) throws Exception {
+        if (object instanceof Collection<?> collection) {
+            return collection.toArray();
+        }
+        if (object instanceof Map<?, ?> map) {
+            Object[] elements = new Object[map.size() * 2];
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                elements[i++] = entry.getKey();
+                elements[i++] = entry.getValue();
+            }
+            return elements;
         }
+        // Plugin is run over scratch context just to learn which objects its structure references
+        List<Object> nestedObjects = new ArrayList<>();
+        for (DeepCopyModulePlugin plugin : plan.plugins()) {
+            if (plugin.instantiateCopyObjects(object, new CopyObjectContext(), nestedObjects::add)) {
+                return nestedObjects.toArray();
+            }
+            nestedObjects.clear();
+        }
+        return null;
     }
 
     public static class Builder {
 
         private final Set<String> wrapperClassNames = new HashSet<>();
+        private final Set<String> constructorCopiedClassNames = new HashSet<>();
         private final List<Predicate<Class<?>>> wrapperClassPredicates = new ArrayList<>();
         private final Map<String, UnaryOperator<?>> customCopyFunctions = new HashMap<>();
         private final Map<String, Supplier<?>> classInstanceSuppliers = new HashMap<>();
         private final List<PluginWithPriority> copyPlugins = new ArrayList<>();
+        private int copierSpecializationThreshold = 0;
+        private ForkJoinPool forkJoinPool;
+        private int parallelForkThreshold;
+        private boolean immutabilityAnalysis = true;
+        private final FieldRules fieldRules = new FieldRules();
+        private int maxDepth = Integer.MAX_VALUE;
+        private boolean generatedCopiers = true;
+        private boolean collectStatistics;
 
         private Builder() {
             registerWrapperClass(Boolean.class);
@@ -233,6 +804,28 @@ public class DeepCopyModule {
             registerWrapperClassPredicate(cls -> cls.getPackageName().equals("java.time"));
             registerWrapperClassPredicate(cls -> Number.class.equals(cls.getSuperclass()) && !cls.getPackageName().equals("java.util.concurrent.atomic"));
 
+            // Atomics are copied by value read once, they may be updated by other threads during copy
+            registerCustomCopyFunction(AtomicBoolean.class, src -> new AtomicBoolean(src.get()));
+            registerCustomCopyFunction(AtomicInteger.class, src -> new AtomicInteger(src.get()));
+            registerCustomCopyFunction(AtomicLong.class, src -> new AtomicLong(src.get()));
+            registerCustomCopyFunction(AtomicIntegerArray.class, Builder::copyAtomicIntegerArray);
+            registerCustomCopyFunction(AtomicLongArray.class, Builder::copyAtomicLongArray);
+            registerCustomCopyFunction(LongAdder.class, Builder::copyLongAdder);
+            registerCustomCopyFunction(DoubleAdder.class, Builder::copyDoubleAdder);
+
+            // Plugins for exact classes go before generic ones
+            registerCopyPlugin(new ArrayListCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new ArrayDequeCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new HashMapCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new HashSetCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new TreeMapCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new EnumMapCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new EnumSetCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new UnmodifiableCollectionCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new ConcurrentHashMapCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new ConcurrentSkipListMapCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new CopyOnWriteArrayListCopyPlugin(), Integer.MAX_VALUE - 1);
+            registerCopyPlugin(new AtomicReferenceCopyPlugin(), Integer.MAX_VALUE - 1);
             registerCopyPlugin(new ListCopyPlugin(), Integer.MAX_VALUE);
             registerCopyPlugin(new SetCopyPlugin(), Integer.MAX_VALUE);
             registerCopyPlugin(new MapCopyPlugin(), Integer.MAX_VALUE);
@@ -241,16 +834,61 @@ public class DeepCopyModule {
         public DeepCopyModule build() {
             return new DeepCopyModule(
                     this.wrapperClassNames,
+                    this.constructorCopiedClassNames,
                     this.wrapperClassPredicates,
                     this.customCopyFunctions,
                     this.classInstanceSuppliers,
                     this.copyPlugins.stream()
                             .sorted(Comparator.comparing(PluginWithPriority::priority))
                             .map(PluginWithPriority::plugin)
-                            .toList()
+                            .toList(),
+                    this.copierSpecializationThreshold,
+                    this.forkJoinPool,
+                    this.parallelForkThreshold,
+                    this.immutabilityAnalysis,
+                    this.fieldRules,
+                    this.maxDepth,
+                    this.generatedCopiers ? loadGeneratedCopiers() : Map.of(),
+                    this.collectStatistics
             );
         }
 
+        private static AtomicIntegerArray copyAtomicIntegerArray(AtomicIntegerArray src) {
+            int[] values = new int[src.length()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = src.get(i);
+            }
+            return new AtomicIntegerArray(values);
+        }
+
+        private static AtomicLongArray copyAtomicLongArray(AtomicLongArray src) {
+            long[] values = new long[src.length()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = src.get(i);
+            }
+            return new AtomicLongArray(values);
+        }
+
+        private static LongAdder copyLongAdder(LongAdder src) {
+            LongAdder copy = new LongAdder();
+            copy.add(src.sum());
+            return copy;
+        }
+
+        private static DoubleAdder copyDoubleAdder(DoubleAdder src) {
+            DoubleAdder copy = new DoubleAdder();
+            copy.add(src.sum());
+            return copy;
+        }
+
+        private static Map<Class<?>, DeepCopier<?>> loadGeneratedCopiers() {
+            Map<Class<?>, DeepCopier<?>> copiers = new HashMap<>();
+            for (DeepCopier<?> copier : ServiceLoader.load(DeepCopier.class)) {
+                copiers.put(copier.type(), copier);
+            }
+            return copiers;
+        }
+
         public Builder registerWrapperClass(Class<?> wrapperClass) {
             this.wrapperClassNames.add(wrapperClass.getName());
             return this;
@@ -261,6 +899,19 @@ public class DeepCopyModule {
             return this;
         }
 
+        /**
+         * Copies objects of class by single call of its canonical constructor, taking all class fields in declaration order,
+         * with copies of field values. Records are always copied this way. Constructor is called once copies of field values
+         * are complete, unless object is reachable from them, so it may read and validate its arguments.
+         *
+         * @throws IllegalArgumentException if class has no such constructor
+         */
+        public Builder registerConstructorCopiedClass(Class<?> constructorCopiedClass) {
+            CanonicalConstructorCopier.checkCanonicalConstructor(constructorCopiedClass);
+            this.constructorCopiedClassNames.add(constructorCopiedClass.getName());
+            return this;
+        }
+
         public <T> Builder registerClassInstanceSupplier(Class<T> instantiableClass, Supplier<T> instanceSupplier) {
             this.classInstanceSuppliers.put(instantiableClass.getName(), instanceSupplier);
             return this;
@@ -271,8 +922,112 @@ public class DeepCopyModule {
             return this;
         }
 
+        /**
+         * Enables generation of specialized copier for class after objects of this class were copied given number of times.
+         * Non-positive value disables specialization, that is default.
+         */
+        public Builder specializeCopiersAfter(int copiesCount) {
+            this.copierSpecializationThreshold = copiesCount;
+            return this;
+        }
+
+        /**
+         * Enables parallel copy in given pool. Traversal work is split into fork/join tasks when pending objects of a task
+         * (elements of big arrays, collections and maps mostly) exceed forkThreshold, so graphs smaller than that are copied
+         * by single task. Plugins, custom copy functions and instance suppliers must be thread safe in this mode.
+         */
+        public Builder parallelCopy(ForkJoinPool forkJoinPool, int forkThreshold) {
+            if (forkThreshold < 1) {
+                throw new IllegalArgumentException("Fork threshold must be positive");
+            }
+            this.forkJoinPool = forkJoinPool;
+            this.parallelForkThreshold = forkThreshold;
+            return this;
+        }
+
+        /**
+         * Objects of deeply immutable classes (see {@link Immutable}) are shared by copy instead of being copied,
+         * and arrays of final such classes are copied with System.arraycopy(). Analysis is enabled by default,
+         * it can be disabled if copy must not share any object except wrappers.
+         */
+        public Builder analyzeImmutability(boolean enabled) {
+            this.immutabilityAnalysis = enabled;
+            return this;
+        }
+
+        /**
+         * Excludes field of cls or its superclass from copies of cls and its subclasses,
+         * copy keeps field value set on its instantiation.
+         */
+        public Builder excludeField(Class<?> cls, String fieldName) {
+            this.fieldRules.addFieldRule(cls, fieldName, FieldRules.Action.EXCLUDE);
+            return this;
+        }
+
+        /**
+         * Makes copies of cls and its subclasses reference the same object in field as source does.
+         */
+        public Builder shareField(Class<?> cls, String fieldName) {
+            this.fieldRules.addFieldRule(cls, fieldName, FieldRules.Action.SHARE);
+            return this;
+        }
+
+        /**
+         * Excludes fields which path matches glob pattern, path is name of declaring class and field name joined with dot,
+         * e.g. "com.example.Book.bookRatings" or "com.example.entity.*.lazy*". '*' matches any characters, '?' matches one.
+         */
+        public Builder excludeFields(String fieldPathPattern) {
+            this.fieldRules.addPatternRule(fieldPathPattern, FieldRules.Action.EXCLUDE);
+            return this;
+        }
+
+        /**
+         * Shares values of fields which path matches glob pattern, see {@link #excludeFields(String)}.
+         */
+        public Builder shareFields(String fieldPathPattern) {
+            this.fieldRules.addPatternRule(fieldPathPattern, FieldRules.Action.SHARE);
+            return this;
+        }
+
+        /**
+         * Limits depth of copy: objects deeper than maxDepth levels below copied object are shared with source instead of copied,
+         * so zero depth makes shallow copy. Depth of object reachable by several paths is length of the shortest one,
+         * so object is copied if any path to it is short enough, and all copies reference the same copy of it.
+         * There is no limit by default.
+         */
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth < 0) {
+                throw new IllegalArgumentException("Max depth can't be negative");
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * Copiers generated at build time for {@link DeepCopyable} classes are looked up with ServiceLoader
+         * and used instead of reflective field access. Enabled by default.
+         */
+        public Builder useGeneratedCopiers(boolean enabled) {
+            this.generatedCopiers = enabled;
+            return this;
+        }
+
+        /**
+         * Enables statistics: time of copy phases, copied and shared objects per class, plugin hits and max depth of copied graphs,
+         * see {@link DeepCopyModule#statistics()} and {@link DeepCopyModule#registerStatisticsMXBean(String)}. Each copy is also reported as JFR event
+         * deepcopy.Copy while it's enabled in recording. Disabled by default.
+         */
+        public Builder collectStatistics(boolean enabled) {
+            this.collectStatistics = enabled;
+            return this;
+        }
+
+        /**
+         * Plugins with lower priority are asked first. Plugin implementing deprecated {@link DeepCopyModulePlugin#supports(Object)} only
+         * is asked for every object, see there.
+         */
         public Builder registerCopyPlugin(DeepCopyModulePlugin plugin, int priority) {
-            this.copyPlugins.add(new PluginWithPriority(priority, plugin));
+            this.copyPlugins.add(new PluginWithPriority(priority, PerObjectSupportPlugin.adaptIfNeeded(plugin)));
             return this;
         }
 
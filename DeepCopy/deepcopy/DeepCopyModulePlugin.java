@@ -5,10 +5,41 @@ import java.util.function.Function;
 
 public interface DeepCopyModulePlugin {
 
-    boolean supports(Object src);
+    /**
+     * Support is resolved once per class and cached by {@link DeepCopyModule}, so it can't depend on object state.
+     * Plugin that overrides deprecated {@link #supports(Object)} only is asked for every object instead.
+     */
+    default boolean supports(Class<?> srcClass) {
+        return false;
+    }
+
+    /**
+     * @deprecated override {@link #supports(Class)}, that is asked once per class. Plugin overriding this method only
+     * keeps working, but it's asked on every stage for every object of classes that are not arrays, wrappers or copied by constructor.
+     */
+    @Deprecated
+    default boolean supports(Object src) {
+        return supports(src.getClass());
+    }
 
+    /**
+     * Instantiates copy of src and puts it to context. Nested objects are passed to nestedObjectsInstantiation,
+     * that only enqueues them for instantiation, so the copy of nested object doesn't exist yet when it returns.
+     */
     boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) throws Exception;
 
+    /**
+     * Reuses previousCopy, an object of previous copy of the same position in graph, as copy of src instead of new instance.
+     * Plugin prepares previousCopy to be filled on later stages (normally just clears it), puts it to context
+     * and passes nested objects as in {@link #instantiateCopyObjects}. Objects of previous copy can be offered
+     * for nested objects by {@link CopyObjectContext#registerReusableCopy}. Reuse isn't supported by default.
+     *
+     * @return false if previousCopy can't be reused, src is instantiated as usual then
+     */
+    default boolean reuseCopyObject(Object src, Object previousCopy, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) throws Exception {
+        return false;
+    }
+
     default boolean setReferenceFields(Object src, CopyObjectContext context) {
         return true;
     }
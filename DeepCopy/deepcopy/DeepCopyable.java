@@ -0,0 +1,16 @@
+package deepcopy;
+
+import java.lang.annotation.*;
+
+/**
+ *
+ * Marks class for generation of reflection-free {@link DeepCopier} by {@link deepcopy.processor.DeepCopyableProcessor}
+ * at build time. Class must have non-private no-arg constructor, and its fields including inherited ones
+ * must be non-final and accessible from class package, or have getter and setter accessible from there.
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DeepCopyable {
+}
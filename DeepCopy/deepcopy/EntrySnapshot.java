@@ -0,0 +1,61 @@
+package deepcopy;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Entries of concurrent map captured by single weakly consistent traversal. Plugins keep it in context between copy stages,
+ * so nested objects are instantiated and copy is filled from the same entries, even if map is modified meanwhile.
+ */
+final class EntrySnapshot {
+
+    final Object[] keys;
+    final Object[] values;
+    final int size;
+
+    private EntrySnapshot(Object[] keys, Object[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    static EntrySnapshot of(Map<?, ?> map) {
+        // Size is an estimate only, map may grow during traversal
+        Collector collector = new Collector(map.size());
+        map.forEach(collector);
+        return new EntrySnapshot(collector.keys, collector.values, collector.size);
+    }
+
+    void forEachObject(Consumer<Object> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i]);
+            action.accept(values[i]);
+        }
+    }
+
+    private static final class Collector implements BiConsumer<Object, Object> {
+
+        private Object[] keys;
+        private Object[] values;
+        private int size;
+
+        private Collector(int expectedSize) {
+            keys = new Object[Math.max(expectedSize, 8)];
+            values = new Object[keys.length];
+        }
+
+        @Override
+        public void accept(Object key, Object value) {
+            if (size == keys.length) {
+                int capacity = size + (size >> 1);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package deepcopy;
+
+import java.util.EnumMap;
+import java.util.function.Consumer;
+
+/**
+ * Copies EnumMap through its copy constructor, that keeps key type and array of values of the same size.
+ * Enum keys don't depend on values, so source values are replaced with copies in place.
+ */
+public class EnumMapCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == EnumMap.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        EnumMap<?, ?> srcMap = (EnumMap<?, ?>) src;
+        context.putCopyInstanceFor(src, new EnumMap<>(srcMap));
+        for (Object value : srcMap.values()) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setReferenceFields(Object src, CopyObjectContext context) {
+        EnumMap<?, Object> copyMap = (EnumMap<?, Object>) context.getCopyInstanceFor(src);
+        copyMap.replaceAll((key, value) -> context.getCopyInstanceFor(value));
+        return true;
+    }
+
+}
@@ -0,0 +1,22 @@
+package deepcopy;
+
+import java.util.EnumSet;
+import java.util.function.Consumer;
+
+/**
+ * Copies EnumSet with its bit vector at once, enum elements are shared anyway.
+ */
+public class EnumSetCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return EnumSet.class.isAssignableFrom(srcClass);
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        context.putCopyInstanceFor(src, ((EnumSet<?>) src).clone());
+        return true;
+    }
+
+}
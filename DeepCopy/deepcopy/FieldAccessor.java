@@ -0,0 +1,315 @@
+package deepcopy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ *
+ * Field access through method handles adapted to exact types, so primitive fields are copied without boxing
+ * and without the access check performed by {@link Field#get(Object)} and {@link Field#set(Object, Object)} on each call.
+ *
+ */
+abstract class FieldAccessor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Field field;
+    final MethodHandle getter;
+    final MethodHandle setter;
+
+    private FieldAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+        this.field = field;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Field must be already accessible.
+     */
+    static FieldAccessor of(Field field) throws IllegalAccessException {
+        Class<?> type = field.getType();
+        Class<?> handleType = type.isPrimitive() ? type : Object.class;
+        MethodHandle getter = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(handleType, Object.class));
+        MethodHandle setter = LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, handleType));
+
+        if (!type.isPrimitive()) return new ReferenceAccessor(field, getter, setter);
+        if (type == int.class) return new IntAccessor(field, getter, setter);
+        if (type == long.class) return new LongAccessor(field, getter, setter);
+        if (type == double.class) return new DoubleAccessor(field, getter, setter);
+        if (type == float.class) return new FloatAccessor(field, getter, setter);
+        if (type == boolean.class) return new BooleanAccessor(field, getter, setter);
+        if (type == byte.class) return new ByteAccessor(field, getter, setter);
+        if (type == short.class) return new ShortAccessor(field, getter, setter);
+        return new CharAccessor(field, getter, setter);
+    }
+
+    Field field() {
+        return field;
+    }
+
+    /**
+     * Copies field value from src to copy object as is.
+     */
+    abstract void copy(Object src, Object copy);
+
+    Object get(Object src) {
+        throw new UnsupportedOperationException("Primitive field " + field + " is copied by value only");
+    }
+
+    void set(Object copy, Object value) {
+        throw new UnsupportedOperationException("Primitive field " + field + " is copied by value only");
+    }
+
+    /**
+     * Compares field values of two objects of the same class, references are compared by identity.
+     */
+    abstract boolean sameValue(Object src, Object copy);
+
+    RuntimeException accessFailure(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        // Field handles don't declare checked exceptions, it's just the signature of invokeExact()
+        return new IllegalStateException("Can't access field " + field, cause);
+    }
+
+    private static final class ReferenceAccessor extends FieldAccessor {
+
+        private ReferenceAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            set(copy, get(src));
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            return get(src) == get(copy);
+        }
+
+        @Override
+        Object get(Object src) {
+            try {
+                return (Object) getter.invokeExact(src);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        void set(Object copy, Object value) {
+            try {
+                setter.invokeExact(copy, value);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class IntAccessor extends FieldAccessor {
+
+        private IntAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (int) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return (int) getter.invokeExact(src) == (int) getter.invokeExact(copy);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class LongAccessor extends FieldAccessor {
+
+        private LongAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (long) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return (long) getter.invokeExact(src) == (long) getter.invokeExact(copy);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class DoubleAccessor extends FieldAccessor {
+
+        private DoubleAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (double) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return Double.doubleToRawLongBits((double) getter.invokeExact(src)) == Double.doubleToRawLongBits((double) getter.invokeExact(copy));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class FloatAccessor extends FieldAccessor {
+
+        private FloatAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (float) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return Float.floatToRawIntBits((float) getter.invokeExact(src)) == Float.floatToRawIntBits((float) getter.invokeExact(copy));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class BooleanAccessor extends FieldAccessor {
+
+        private BooleanAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (boolean) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return (boolean) getter.invokeExact(src) == (boolean) getter.invokeExact(copy);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class ByteAccessor extends FieldAccessor {
+
+        private ByteAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (byte) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return (byte) getter.invokeExact(src) == (byte) getter.invokeExact(copy);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class ShortAccessor extends FieldAccessor {
+
+        private ShortAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (short) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return (short) getter.invokeExact(src) == (short) getter.invokeExact(copy);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+
+    private static final class CharAccessor extends FieldAccessor {
+
+        private CharAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field, getter, setter);
+        }
+
+        @Override
+        void copy(Object src, Object copy) {
+            try {
+                setter.invokeExact(copy, (char) getter.invokeExact(src));
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object src, Object copy) {
+            try {
+                return (char) getter.invokeExact(src) == (char) getter.invokeExact(copy);
+            } catch (Throwable e) {
+                throw accessFailure(e);
+            }
+        }
+    }
+}
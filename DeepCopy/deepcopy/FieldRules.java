@@ -0,0 +1,106 @@
+package deepcopy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ *
+ * Rules excluding fields from copy or sharing their values instead of copying. Rules are applied once per class
+ * when its field layout is resolved, so filtered fields cost nothing on copy. Rules for exact fields go before patterns,
+ * patterns are matched in registration order.
+ *
+ */
+final class FieldRules {
+
+    enum Action {
+        COPY,
+        // Field isn't copied, copy keeps value set on its instantiation
+        EXCLUDE,
+        // Field value is copied by reference
+        SHARE
+    }
+
+    private final List<FieldRule> fieldRules = new ArrayList<>();
+    private final List<PatternRule> patternRules = new ArrayList<>();
+
+    /**
+     * Rule for field of cls or its superclass, that is applied to objects of cls and its subclasses.
+     */
+    void addFieldRule(Class<?> cls, String fieldName, Action action) {
+        for (Class<?> declaringClass = cls; declaringClass != null; declaringClass = declaringClass.getSuperclass()) {
+            try {
+                declaringClass.getDeclaredField(fieldName);
+                fieldRules.add(new FieldRule(cls, declaringClass, fieldName, action));
+                return;
+            } catch (NoSuchFieldException ignored) {
+                // Field can be declared in superclass
+            }
+        }
+        throw new IllegalArgumentException("There is no field " + fieldName + " in " + cls.getName());
+    }
+
+    /**
+     * Rule for fields which path, name of declaring class and field name joined with dot, matches glob pattern.
+     * '*' matches any number of any characters, '?' matches one character.
+     */
+    void addPatternRule(String fieldPathPattern, Action action) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : fieldPathPattern.split("((?<=[*?])|(?=[*?]))")) {
+            switch (part) {
+                case "*" -> regex.append(".*");
+                case "?" -> regex.append('.');
+                default -> regex.append(Pattern.quote(part));
+            }
+        }
+        patternRules.add(new PatternRule(Pattern.compile(regex.toString()), action));
+    }
+
+    Action actionFor(Class<?> type, Field field) {
+        for (FieldRule rule : fieldRules) {
+            if (rule.declaringClass() == field.getDeclaringClass() && rule.fieldName().equals(field.getName()) && rule.cls().isAssignableFrom(type)) {
+                return rule.action();
+            }
+        }
+        if (!patternRules.isEmpty()) {
+            String fieldPath = field.getDeclaringClass().getName() + "." + field.getName();
+            for (PatternRule rule : patternRules) {
+                if (rule.pattern().matcher(fieldPath).matches()) {
+                    return rule.action();
+                }
+            }
+        }
+        return Action.COPY;
+    }
+
+    /**
+     * @return true if any field of type or its superclasses isn't just copied
+     */
+    boolean hasRulesFor(Class<?> type) {
+        if (fieldRules.isEmpty() && patternRules.isEmpty()) {
+            return false;
+        }
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && actionFor(type, field) != Action.COPY) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private record FieldRule(
+            Class<?> cls,
+            Class<?> declaringClass,
+            String fieldName,
+            Action action
+    ) {}
+
+    private record PatternRule(
+            Pattern pattern,
+            Action action
+    ) {}
+}
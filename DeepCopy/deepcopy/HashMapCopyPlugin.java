@@ -0,0 +1,69 @@
+package deepcopy;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Copies HashMap and LinkedHashMap into map with capacity for all source entries, so it's filled without rehashing.
+ */
+public class HashMapCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == HashMap.class || srcClass == LinkedHashMap.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        Map<?, ?> srcMap = (Map<?, ?>) src;
+        Map<?, ?> newMapInstance = src.getClass() == LinkedHashMap.class
+                ? LinkedHashMap.newLinkedHashMap(srcMap.size())
+                : HashMap.newHashMap(srcMap.size());
+        context.putCopyInstanceFor(srcMap, newMapInstance);
+        context.registerValueDependentDataStructure(srcMap);
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            nestedObjectsInstantiation.accept(entry.getKey());
+            nestedObjectsInstantiation.accept(entry.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Values of previous copy are offered for values of the same keys, that works for keys copied by value
+     * (strings, wrappers, immutable objects) and keys with value based equals().
+     */
+    @Override
+    public boolean reuseCopyObject(Object src, Object previousCopy, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        if (previousCopy.getClass() != src.getClass()) {
+            return false;
+        }
+        Map<?, ?> srcMap = (Map<?, ?>) src;
+        Map<?, ?> previousMap = (Map<?, ?>) previousCopy;
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            context.registerReusableCopy(entry.getValue(), previousMap.get(entry.getKey()));
+        }
+        previousMap.clear();
+        context.putCopyInstanceFor(srcMap, previousMap);
+        context.registerValueDependentDataStructure(srcMap);
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            nestedObjectsInstantiation.accept(entry.getKey());
+            nestedObjectsInstantiation.accept(entry.getValue());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean fillValueDependentDataStructure(Object src, CopyObjectContext context) {
+        Map<?, ?> srcMap = (Map<?, ?>) src;
+        Map<Object, Object> copyMap = (Map<Object, Object>) context.getCopyInstanceFor(srcMap);
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            copyMap.put(
+                    context.getCopyInstanceFor(entry.getKey()),
+                    context.getCopyInstanceFor(entry.getValue())
+            );
+        }
+        return true;
+    }
+}
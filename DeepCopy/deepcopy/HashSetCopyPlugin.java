@@ -0,0 +1,56 @@
+package deepcopy;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Copies HashSet and LinkedHashSet into set with capacity for all source elements, so it's filled without rehashing.
+ */
+public class HashSetCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == HashSet.class || srcClass == LinkedHashSet.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        Set<?> srcSet = (Set<?>) src;
+        Set<?> newSetInstance = src.getClass() == LinkedHashSet.class
+                ? LinkedHashSet.newLinkedHashSet(srcSet.size())
+                : HashSet.newHashSet(srcSet.size());
+        context.putCopyInstanceFor(srcSet, newSetInstance);
+        context.registerValueDependentDataStructure(srcSet);
+        for (Object value : srcSet) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean reuseCopyObject(Object src, Object previousCopy, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        if (previousCopy.getClass() != src.getClass()) {
+            return false;
+        }
+        Set<?> srcSet = (Set<?>) src;
+        ((Set<?>) previousCopy).clear();
+        context.putCopyInstanceFor(srcSet, previousCopy);
+        context.registerValueDependentDataStructure(srcSet);
+        for (Object value : srcSet) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean fillValueDependentDataStructure(Object src, CopyObjectContext context) {
+        Set<?> srcSet = (Set<?>) src;
+        Set<Object> copySet = (Set<Object>) context.getCopyInstanceFor(srcSet);
+        for (Object value : srcSet) {
+            copySet.add(context.getCopyInstanceFor(value));
+        }
+        return true;
+    }
+}
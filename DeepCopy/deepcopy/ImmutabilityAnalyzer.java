@@ -0,0 +1,81 @@
+package deepcopy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ *
+ * Decides once per class whether its objects are deeply immutable and can be shared by copy.
+ * Class is deeply immutable if it's annotated with {@link Immutable} or all its instance fields up the hierarchy are final
+ * and of immutable types: primitives, wrapper classes of the module, {@link Immutable} types
+ * or final classes that are deeply immutable themselves. Arrays are never immutable.
+ * Neither are classes without instance fields, Object itself included, unless they are records or registered:
+ * objects of such classes are used for their identity, as locks or markers, so copy must be another object.
+ *
+ */
+final class ImmutabilityAnalyzer {
+
+    private final Predicate<Class<?>> wrapperClassCheck;
+    private final ClassValue<Boolean> immutableClasses = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return analyze(type, new HashMap<>());
+        }
+    };
+
+    ImmutabilityAnalyzer(Predicate<Class<?>> wrapperClassCheck) {
+        this.wrapperClassCheck = wrapperClassCheck;
+    }
+
+    boolean isDeeplyImmutable(Class<?> type) {
+        return immutableClasses.get(type);
+    }
+
+    /**
+     * Classes that are still being analyzed are assumed immutable, so mutually referencing classes may be immutable too.
+     * Only the result for the class analysis started from is cached, as nested results can depend on this assumption.
+     */
+    private boolean analyze(Class<?> type, Map<Class<?>, Boolean> analyzedTypes) {
+        Boolean analyzed = analyzedTypes.get(type);
+        if (analyzed != null) {
+            return analyzed;
+        }
+        if (type.isArray()) {
+            return false;
+        }
+        if (wrapperClassCheck.test(type) || type.isAnnotationPresent(Immutable.class)) {
+            return true;
+        }
+
+        analyzedTypes.put(type, true);
+        boolean hasFields = false;
+        for (Class<?> cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers)) {
+                    continue;
+                }
+                hasFields = true;
+                if (!Modifier.isFinal(modifiers) || !isImmutableFieldType(field.getType(), analyzedTypes)) {
+                    analyzedTypes.put(type, false);
+                    return false;
+                }
+            }
+        }
+        if (!hasFields && !type.isRecord()) {
+            analyzedTypes.put(type, false);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isImmutableFieldType(Class<?> type, Map<Class<?>, Boolean> analyzedTypes) {
+        if (type.isPrimitive() || wrapperClassCheck.test(type) || type.isAnnotationPresent(Immutable.class)) {
+            return true;
+        }
+        return Modifier.isFinal(type.getModifiers()) && analyze(type, analyzedTypes);
+    }
+}
@@ -0,0 +1,15 @@
+package deepcopy;
+
+import java.lang.annotation.*;
+
+/**
+ *
+ * Marks class as deeply immutable, so its objects are shared by copy instead of being copied.
+ * Use it for classes that immutability analysis can't prove, e.g. with non-final fields assigned in constructor only.
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Immutable {
+}
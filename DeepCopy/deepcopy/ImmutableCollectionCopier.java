@@ -0,0 +1,108 @@
+package deepcopy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *
+ * Copy of List.of(), Set.of(), Map.of(), copyOf() and Stream.toList() collections, made by the same factories
+ * with copies of elements, so copy is immutable collection of the same kind with the same null handling.
+ * Components are elements of list or set, and keys followed by values for map. Copy of set or map is built
+ * once its elements are complete, as hash codes of copies are computed then. Sub list can't be made again,
+ * so it's copied to list of its elements.
+ *
+ */
+final class ImmutableCollectionCopier implements ConstructorCopier {
+
+    private static final String IMMUTABLE_COLLECTIONS_PREFIX = "java.util.ImmutableCollections$";
+    private static final Class<?> SUB_LIST_CLASS = List.of(1, 2, 3).subList(0, 2).getClass();
+
+    private enum Kind { LIST, SET, MAP }
+
+    private final Kind kind;
+    private final boolean subList;
+
+    private ImmutableCollectionCopier(Kind kind, boolean subList) {
+        this.kind = kind;
+        this.subList = subList;
+    }
+
+    static boolean isImmutableCollection(Class<?> type) {
+        return type.getName().startsWith(IMMUTABLE_COLLECTIONS_PREFIX)
+                && (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type));
+    }
+
+    static ImmutableCollectionCopier of(Class<?> type) {
+        Kind kind = List.class.isAssignableFrom(type) ? Kind.LIST : Set.class.isAssignableFrom(type) ? Kind.SET : Kind.MAP;
+        return new ImmutableCollectionCopier(kind, type == SUB_LIST_CLASS);
+    }
+
+    @Override
+    public Object[] components(Object src) {
+        if (kind != Kind.MAP) {
+            return ((Collection<?>) src).toArray();
+        }
+        Map<?, ?> srcMap = (Map<?, ?>) src;
+        Object[] components = new Object[srcMap.size() * 2];
+        int i = 0;
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            components[i++] = entry.getKey();
+            components[i++] = entry.getValue();
+        }
+        return components;
+    }
+
+    @Override
+    public boolean isReference(int component) {
+        return true;
+    }
+
+    @Override
+    public boolean sameValue(Object src, Object copy, int component) {
+        // All components are references
+        return true;
+    }
+
+    @Override
+    public Object construct(Object src, Object[] components) {
+        switch (kind) {
+            case LIST -> {
+                return allowsNulls((List<?>) src) ? Arrays.stream(components).toList() : List.of(components);
+            }
+            case SET -> {
+                return Set.copyOf(Arrays.asList(components));
+            }
+            default -> {
+                Map.Entry<Object, Object>[] entries = new Map.Entry[components.length / 2];
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = Map.entry(components[2 * i], components[2 * i + 1]);
+                }
+                return Map.ofEntries(entries);
+            }
+        }
+    }
+
+    /**
+     * Lists of List.of() and copyOf() reject nulls, lists of Stream.toList() allow them, both are of the same classes.
+     */
+    private boolean allowsNulls(List<?> src) {
+        for (Object element : src) {
+            if (element == null) {
+                return true;
+            }
+        }
+        if (subList) {
+            try {
+                src.indexOf(null);
+                return true;
+            } catch (NullPointerException e) {
+                return false;
+            }
+        }
+        // List.copyOf() returns list itself if it rejects nulls
+        return List.copyOf(src) != src;
+    }
+}
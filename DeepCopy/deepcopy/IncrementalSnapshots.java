@@ -0,0 +1,429 @@
+package deepcopy;
+
+import java.util.*;
+
+/**
+ *
+ * Series of deep copies of one source graph, where each next snapshot re-copies only changed part of graph.
+ * Previous snapshot is the fingerprint of source: object is changed if its value fields differ from its previous copy,
+ * or its references point to other objects than those previous copy references were copied from. Plugin-handled structures
+ * have their elements kept for comparison instead. Changed object makes all objects it's reachable from changed too,
+ * all other objects are not copied again, their previous copies are shared by new snapshot.
+ * <p>
+ * Changes are found by reading the whole reachable graph on each snapshot, only objects of shared classes are skipped.
+ * So snapshot costs about as much CPU time as full copy, and what it saves is allocation of unchanged objects,
+ * memory of snapshots kept together and garbage collection of short-lived ones.
+ * <p>
+ * So snapshots share unchanged subgraphs with each other and must be treated as read-only: change of snapshot
+ * is visible in other snapshots and isn't detected by next one. Objects of custom copy functions are always copied again.
+ * Objects shared because of {@link DeepCopyModule.Builder#maxDepth(int)} are kept as their own copies, and they are
+ * treated as changed, so objects referencing them are copied again on each snapshot, as depth of objects may change.
+ * Depth is length of the shortest path from source object, as in ordinary copy.
+ * Instance is not thread safe, snapshots must not be taken concurrently with source changes.
+ *
+ */
+public final class IncrementalSnapshots<T> {
+
+    private static final Object[] NO_OBJECTS = new Object[0];
+    private static final Node[] NO_NODES = new Node[0];
+    // Custom copy function is allowed to return null, while null copy of node means it isn't copied yet
+    private static final Object NULL_COPY = CopyObjectContext.NULL_COPY;
+
+    private final DeepCopyModule module;
+    private final T src;
+    // Single identity map keeps both previous copies and analysis state, so object is looked up about once per snapshot
+    private final Map<Object, Node> nodes = new IdentityHashMap<>();
+    private final SnapshotContext context = new SnapshotContext();
+    private int epoch;
+
+    IncrementalSnapshots(DeepCopyModule module, T src) {
+        this.module = module;
+        this.src = src;
+    }
+
+    public T snapshot() throws Exception {
+        epoch++;
+        context.clearCopyStages();
+        if (module.maxDepth() != Integer.MAX_VALUE) {
+            // Change analysis shares the same objects as copy does
+            context.setObjectsWithinDepth(module.objectsWithinDepth(new Object[] {src}));
+        }
+        ChangeAnalysis analysis = new ChangeAnalysis();
+        analysis.analyze(src);
+
+        for (int i = 0; i < analysis.visitedNodes.size(); i++) {
+            if (analysis.changed[i]) {
+                analysis.visitedNodes.get(i).copy = null;
+            }
+        }
+        if (nodes.size() > 2 * analysis.visitedNodes.size() + 64) {
+            // Most of nodes are of objects not reachable anymore
+            nodes.values().removeIf(node -> node.epoch != epoch);
+        }
+
+        context.reachedObjects = analysis.visitedNodes.size();
+        CopyTraversal traversal = new CopyTraversal(module, context);
+        traversal.nestedObjects().push(src, 0);
+        module.copyGraph(traversal, src.getClass(), 1, false);
+        return (T) context.getCopyInstanceFor(src);
+    }
+
+    private Node nodeOf(Object object) {
+        Node node = nodes.get(object);
+        if (node == null) {
+            node = new Node();
+            nodes.put(object, node);
+        }
+        return node;
+    }
+
+    private boolean isShared(Object object) {
+        return module.copyPlan(object.getClass()).strategy() == ClassCopyPlan.Strategy.SHARED;
+    }
+
+    /**
+     * Source object state between snapshots.
+     */
+    private static final class Node {
+
+        private Object copy;
+        // Elements of plugin-handled structure at the moment of copy
+        private Object[] elements;
+        private int epoch;
+        private int index;
+    }
+
+    /**
+     * Finds changed objects with iterative Tarjan's algorithm: objects of one strongly connected component
+     * reach each other, so component is changed as a whole, and it's changed if any of its objects is changed
+     * or any component it references is changed. Components are completed in reverse topological order,
+     * so referenced components are always known by then.
+     */
+    private class ChangeAnalysis {
+
+        private final List<Node> visitedNodes = new ArrayList<>();
+        private int[] lowLinks = new int[64];
+        private boolean[] changed = new boolean[64];
+        private boolean[] onStack = new boolean[64];
+        private int[] componentStack = new int[64];
+        private int componentStackSize;
+        // Frames are reused by depth, so do their arrays
+        private final List<Frame> frames = new ArrayList<>();
+        private int depth;
+
+        private void analyze(Object root) throws Exception {
+            if (isShared(root)) {
+                return;
+            }
+            enter(root, nodeOf(root));
+            while (depth > 0) {
+                Frame frame = frames.get(depth - 1);
+                if (frame.position < frame.childrenCount) {
+                    int position = frame.position++;
+                    Object child = frame.children[position];
+                    if (child == null || isShared(child)) {
+                        continue;
+                    }
+                    Node childNode = frame.childNodes[position];
+                    if (childNode == null) {
+                        childNode = nodeOf(child);
+                    }
+                    if (childNode.epoch != epoch) {
+                        enter(child, childNode);
+                    } else if (onStack[childNode.index]) {
+                        lowLinks[frame.index] = Math.min(lowLinks[frame.index], childNode.index);
+                    } else {
+                        changed[frame.index] |= changed[childNode.index];
+                    }
+                    continue;
+                }
+                depth--;
+                if (lowLinks[frame.index] == frame.index) {
+                    completeComponent(frame.index);
+                }
+                if (depth > 0) {
+                    Frame parent = frames.get(depth - 1);
+                    lowLinks[parent.index] = Math.min(lowLinks[parent.index], lowLinks[frame.index]);
+                    if (!onStack[frame.index]) {
+                        changed[parent.index] |= changed[frame.index];
+                    }
+                }
+            }
+        }
+
+        private void completeComponent(int rootIndex) {
+            // Component members are on top of stack down to its root
+            int rootPosition = componentStackSize - 1;
+            boolean componentChanged = false;
+            while (componentStack[rootPosition] != rootIndex) {
+                componentChanged |= changed[componentStack[rootPosition--]];
+            }
+            componentChanged |= changed[rootIndex];
+            for (int i = rootPosition; i < componentStackSize; i++) {
+                changed[componentStack[i]] = componentChanged;
+                onStack[componentStack[i]] = false;
+            }
+            componentStackSize = rootPosition;
+        }
+
+        private void enter(Object object, Node node) throws Exception {
+            int index = visitedNodes.size();
+            if (index == changed.length) {
+                lowLinks = Arrays.copyOf(lowLinks, index * 2);
+                changed = Arrays.copyOf(changed, index * 2);
+                onStack = Arrays.copyOf(onStack, index * 2);
+                componentStack = Arrays.copyOf(componentStack, index * 2);
+            }
+            node.epoch = epoch;
+            node.index = index;
+            visitedNodes.add(node);
+            lowLinks[index] = index;
+            onStack[index] = true;
+            componentStack[componentStackSize++] = index;
+
+            if (depth == frames.size()) {
+                frames.add(new Frame());
+            }
+            Frame frame = frames.get(depth++);
+            frame.reset(index);
+            changed[index] = inspect(object, node, frame);
+        }
+
+        /**
+         * Collects objects referenced by object to frame.
+         *
+         * @return true if object itself differs from its previous copy
+         */
+        private boolean inspect(Object object, Node node, Frame frame) throws Exception {
+            ClassCopyPlan plan = module.copyPlan(object.getClass());
+            Object previousCopy = node.copy;
+            if (context.isBeyondDepthLimit(object)) {
+                // Shared below depth limit, so its subgraph isn't walked
+                return true;
+            }
+            if (previousCopy == object) {
+                // Shared below depth limit by previous snapshot, its subgraph wasn't copied to compare with
+                previousCopy = null;
+            }
+            switch (plan.strategy()) {
+                case VALUE_ARRAY -> {
+                    return previousCopy == null || !sameArrayValues(object, previousCopy);
+                }
+                case OBJECT_ARRAY -> {
+                    frame.setChildren((Object[]) object);
+                    return previousCopy == null || !sameReferences(frame, (Object[]) previousCopy);
+                }
+                case PLUGIN -> {
+                    Object[] elements = module.structureElements(object, plan);
+                    if (elements != null) {
+                        frame.setChildren(elements);
+                        boolean structureChanged = previousCopy == null || !Arrays.equals(elements, node.elements, (a, b) -> a == b ? 0 : 1);
+                        node.elements = elements;
+                        return structureChanged;
+                    }
+                    return inspectFields(object, previousCopy, plan, frame);
+                }
+                case REFLECTIVE -> {
+                    return inspectFields(object, previousCopy, plan, frame);
+                }
+                case CONSTRUCTOR -> {
+                    return inspectComponents(object, previousCopy, plan.constructorCopier(), frame);
+                }
+                default -> {
+                    return true;
+                }
+            }
+        }
+
+        private boolean inspectFields(Object object, Object previousCopy, ClassCopyPlan plan, Frame frame) throws Exception {
+            FieldAccessor[] referenceFields = plan.referenceFields();
+            Object[] references = frame.ownChildren(referenceFields.length);
+            for (int i = 0; i < referenceFields.length; i++) {
+                references[i] = referenceFields[i].get(object);
+            }
+            if (previousCopy == null) {
+                return true;
+            }
+            for (int i = 0; i < referenceFields.length; i++) {
+                if (!sameReference(frame, i, referenceFields[i].get(previousCopy))) {
+                    return true;
+                }
+            }
+            for (FieldAccessor field : plan.valueFields()) {
+                if (!field.sameValue(object, previousCopy)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean inspectComponents(Object object, Object previousCopy, ConstructorCopier copier, Frame frame) {
+            Object[] components = copier.components(object);
+            int referencesCount = 0;
+            for (int i = 0; i < components.length; i++) {
+                if (copier.isReference(i)) {
+                    components[referencesCount++] = components[i];
+                }
+            }
+            Object[] references = frame.ownChildren(referencesCount);
+            System.arraycopy(components, 0, references, 0, referencesCount);
+            if (previousCopy == null) {
+                return true;
+            }
+            Object[] previousComponents = copier.components(previousCopy);
+            if (previousComponents.length != components.length) {
+                return true;
+            }
+            int reference = 0;
+            for (int i = 0; i < components.length; i++) {
+                if (copier.isReference(i)) {
+                    if (!sameReference(frame, reference++, previousComponents[i])) {
+                        return true;
+                    }
+                } else if (!copier.sameValue(object, previousCopy, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean sameReferences(Frame frame, Object[] copyReferences) {
+            if (frame.childrenCount != copyReferences.length) {
+                return false;
+            }
+            for (int i = 0; i < copyReferences.length; i++) {
+                if (!sameReference(frame, i, copyReferences[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Compares child of frame with reference of previous copy. Node of child is looked up on the way
+         * and kept in frame, so it isn't looked up again on entering child.
+         *
+         * @return true if copy reference is previous copy of child, or child itself for shared objects
+         */
+        private boolean sameReference(Frame frame, int position, Object copyReference) {
+            Object child = frame.children[position];
+            if (child == copyReference) {
+                return true;
+            }
+            if (child == null || isShared(child)) {
+                return false;
+            }
+            Node childNode = nodeOf(child);
+            frame.childNodes[position] = childNode;
+            // Null copy of existing object is possible for custom copy functions only, that are always copied again
+            return childNode.copy != null && childNode.copy == copyReference;
+        }
+
+        private boolean sameArrayValues(Object srcArray, Object copyArray) {
+            if (srcArray.getClass().getComponentType().isPrimitive()) {
+                return Objects.deepEquals(srcArray, copyArray);
+            }
+            return Arrays.equals((Object[]) srcArray, (Object[]) copyArray, (a, b) -> a == b ? 0 : 1);
+        }
+    }
+
+    private static class Frame {
+
+        private int index;
+        // Children are either source array or structure elements, or references collected to frame's own array
+        private Object[] children = NO_OBJECTS;
+        private Object[] ownChildren = NO_OBJECTS;
+        private int childrenCount;
+        private Node[] childNodes = NO_NODES;
+        private int position;
+
+        private void reset(int index) {
+            this.index = index;
+            this.children = NO_OBJECTS;
+            this.childrenCount = 0;
+            this.position = 0;
+        }
+
+        private void setChildren(Object[] children) {
+            this.children = children;
+            this.childrenCount = children.length;
+            resetChildNodes();
+        }
+
+        private Object[] ownChildren(int count) {
+            if (ownChildren.length < count) {
+                ownChildren = new Object[count];
+            }
+            children = ownChildren;
+            childrenCount = count;
+            resetChildNodes();
+            return children;
+        }
+
+        private void resetChildNodes() {
+            if (childNodes.length < childrenCount) {
+                childNodes = new Node[childrenCount];
+            } else {
+                Arrays.fill(childNodes, 0, childrenCount, null);
+            }
+        }
+    }
+
+    /**
+     * Copy context over nodes, so copies of unchanged objects are found there without seeding context with them.
+     * Objects of shared classes are not kept, they are resolved by their copy plan again, while objects shared
+     * below depth limit are kept, as their class plan would copy them.
+     */
+    private class SnapshotContext extends CopyObjectContext {
+
+        // Objects of source graph reached by change analysis, copied again or shared with previous snapshot
+        private int reachedObjects;
+
+        @Override
+        int size() {
+            return reachedObjects;
+        }
+
+        @Override
+        public void putCopyInstanceFor(Object proto, Object copy) {
+            if (proto != copy || !isShared(proto)) {
+                Node node = nodeOf(proto);
+                node.copy = copy != null ? copy : NULL_COPY;
+                node.epoch = epoch;
+            }
+        }
+
+        @Override
+        Object putCopyInstanceIfAbsent(Object proto, Object copy) {
+            putCopyInstanceFor(proto, copy);
+            return copy;
+        }
+
+        @Override
+        public Object getCopyInstanceFor(Object proto) {
+            if (proto == null) {
+                return null;
+            }
+            Node node = nodes.get(proto);
+            if (node == null || node.copy == null) {
+                return isShared(proto) ? proto : null;
+            }
+            return node.copy != NULL_COPY ? node.copy : null;
+        }
+
+        @Override
+        Object findCopyInstance(Object proto) {
+            Node node = nodes.get(proto);
+            if (node == null || node.copy == null) {
+                return isShared(proto) ? proto : null;
+            }
+            return node.copy;
+        }
+
+        @Override
+        public boolean exists(Object proto) {
+            Node node = nodes.get(proto);
+            return node != null ? node.copy != null : isShared(proto);
+        }
+    }
+}
@@ -8,8 +8,8 @@ import java.util.function.Function;
 public class ListCopyPlugin implements DeepCopyModulePlugin {
 
     @Override
-    public boolean supports(Object src) {
-        return List.class.isAssignableFrom(src.getClass());
+    public boolean supports(Class<?> srcClass) {
+        return List.class.isAssignableFrom(srcClass);
     }
 
     @Override
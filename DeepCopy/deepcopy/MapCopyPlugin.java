@@ -9,8 +9,8 @@ import java.util.function.Function;
 public class MapCopyPlugin implements DeepCopyModulePlugin {
 
     @Override
-    public boolean supports(Object src) {
-        return Map.class.isAssignableFrom(src.getClass());
+    public boolean supports(Class<?> srcClass) {
+        return Map.class.isAssignableFrom(srcClass);
     }
 
     @Override
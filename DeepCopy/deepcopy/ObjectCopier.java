@@ -0,0 +1,22 @@
+package deepcopy;
+
+import java.util.function.UnaryOperator;
+
+/**
+ *
+ * Field by field copy of objects of one class.
+ *
+ */
+interface ObjectCopier {
+
+    /**
+     * Copies fields which values are copied as is: primitive fields and shared reference fields.
+     */
+    void copyValueFields(Object src, Object copy);
+
+    /**
+     * Sets reference fields of copy with objects returned by references function for corresponding src field values.
+     */
+    void copyReferenceFields(Object src, Object copy, UnaryOperator<Object> references);
+
+}
@@ -0,0 +1,136 @@
+package deepcopy;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * Fork/join task of parallel copy. Each task runs its own traversal over shared {@link ConcurrentCopyObjectContext}.
+ * When pending work of the task grows above fork threshold (wide collections, maps, many reference fields),
+ * the older half of its worklists is handed over to a forked task. Big arrays are split into ranges of threshold length.
+ * Small graphs never reach the threshold and are copied by a single task.
+ * Tasks are never serialized, fork/join tasks are serializable for their result only, so state of task is transient.
+ *
+ */
+final class ParallelCopyTask extends RecursiveAction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient DeepCopyModule module;
+    private final int forkThreshold;
+    private final transient ForkingTraversal traversal;
+    private final transient List<ParallelCopyTask> forks = new ArrayList<>();
+
+    private final transient Object[] srcArray;
+    private final transient Object[] copyArray;
+    private final int arrayFrom;
+    private final int arrayTo;
+    private final int arrayElementsDepth;
+
+    private ParallelCopyTask(DeepCopyModule module, CopyObjectContext context, int forkThreshold, Object[] srcArray, Object[] copyArray, int arrayFrom, int arrayTo, int arrayElementsDepth) {
+        this.module = module;
+        this.forkThreshold = forkThreshold;
+        this.traversal = new ForkingTraversal(module, context);
+        this.srcArray = srcArray;
+        this.copyArray = copyArray;
+        this.arrayFrom = arrayFrom;
+        this.arrayTo = arrayTo;
+        this.arrayElementsDepth = arrayElementsDepth;
+    }
+
+    /**
+     * Copies objects queued to nested objects of given traversal.
+     */
+    static void copy(DeepCopyModule module, CopyTraversal rootsTraversal, ForkJoinPool pool, int forkThreshold) throws Exception {
+        ParallelCopyTask rootTask = new ParallelCopyTask(module, rootsTraversal.context(), forkThreshold, null, null, 0, 0, 0);
+        rootsTraversal.nestedObjects().transferTo(rootTask.traversal.nestedObjects(), rootsTraversal.nestedObjects().size());
+        try {
+            pool.invoke(rootTask);
+        } catch (RuntimeException e) {
+            // Fork/join can rethrow exception of other thread wrapped, so look for original checked exception
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof CopyFailure copyFailure) {
+                    throw (Exception) copyFailure.getCause();
+                }
+            }
+            // Exception of other thread is rethrown as new one of the same class caused by original
+            if (e.getCause() != null && e.getCause().getClass() == e.getClass()) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected void compute() {
+        try {
+            if (srcArray != null) {
+                traversal.setDepth(arrayElementsDepth);
+                module.fillArrayElements(srcArray, copyArray, arrayFrom, arrayTo, traversal);
+            }
+            while (module.copyNext(traversal)) {
+                if (traversal.nestedObjects().size() + traversal.copiesToFill().size() / 2 > forkThreshold) {
+                    forkHalf();
+                }
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CopyFailure(e);
+        } finally {
+            // Forks copy into the same context, so they are waited for even if this task failed,
+            // otherwise they would go on over context that caller drops or reuses
+            for (ParallelCopyTask fork : forks) {
+                fork.quietlyJoin();
+            }
+        }
+        for (ParallelCopyTask fork : forks) {
+            // Rethrows failure of fork, that is complete already
+            fork.join();
+        }
+    }
+
+    private void forkHalf() {
+        ParallelCopyTask task = new ParallelCopyTask(module, traversal.context(), forkThreshold, null, null, 0, 0, 0);
+        traversal.nestedObjects().transferTo(task.traversal.nestedObjects(), traversal.nestedObjects().size() / 2);
+        // Fill worklist keeps pairs of copy and source, so only even number of entries is moved
+        traversal.copiesToFill().transferTo(task.traversal.copiesToFill(), traversal.copiesToFill().size() / 4 * 2);
+        forks.add(task);
+        task.fork();
+    }
+
+    private final class ForkingTraversal extends CopyTraversal {
+
+        private ForkingTraversal(DeepCopyModule module, CopyObjectContext context) {
+            super(module, context);
+        }
+
+        @Override
+        boolean forkArrayFill(Object[] srcArray, Object[] copyArray) {
+            if (srcArray.length <= forkThreshold) {
+                return false;
+            }
+            for (int from = 0; from < srcArray.length; from += forkThreshold) {
+                int to = Math.min(from + forkThreshold, srcArray.length);
+                ParallelCopyTask task = new ParallelCopyTask(module, context(), forkThreshold, srcArray, copyArray, from, to, depth());
+                forks.add(task);
+                task.fork();
+            }
+            return true;
+        }
+    }
+
+    private static final class CopyFailure extends RuntimeException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private CopyFailure(Exception cause) {
+            super(cause);
+        }
+    }
+}
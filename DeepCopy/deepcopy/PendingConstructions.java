@@ -0,0 +1,210 @@
+package deepcopy;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ *
+ * Constructs copies of objects copied by constructor, which components were not complete when they were discovered.
+ * Subgraph of each pending object is walked depth first, and object is completed once all objects it references are:
+ * references of its copy are set, by plugin or again for copies that got null instead of pending constructions,
+ * value dependent structure is filled, or object is constructed. So constructor gets components as complete
+ * as after the whole copy. Objects of cycle can't be completed one after another: object copied by constructor
+ * which is referenced back from its own subgraph is constructed when it's needed, with components as they are then.
+ * Objects not reachable from pending constructions are left to usual stages, as nothing they reference is pending.
+ *
+ */
+final class PendingConstructions {
+
+    private static final Object[] NO_REFERENCES = new Object[0];
+
+    private final DeepCopyModule module;
+    private final CopyObjectContext context;
+    private final Set<Object> deferredReferenceObjects = identitySet();
+    private final Set<Object> valueDependentDataStructures = identitySet();
+    private final Set<Object> pendingReferenceObjects = identitySet();
+    // Objects entered by walk, those left on walk stack are not completed yet
+    private final Set<Object> visited = identitySet();
+    private final Set<Object> constructionsInProgress = identitySet();
+
+    PendingConstructions(DeepCopyModule module, CopyObjectContext context) {
+        this.module = module;
+        this.context = context;
+        deferredReferenceObjects.addAll(context.deferredReferenceObjects());
+        valueDependentDataStructures.addAll(context.srcValueDependentDataStructures());
+        pendingReferenceObjects.addAll(context.pendingReferenceObjects());
+    }
+
+    void construct() throws Exception {
+        for (Object pending : context.pendingConstructions()) {
+            if (!visited.contains(pending)) {
+                walk(pending);
+            }
+        }
+        // Objects referencing pending constructions from outside of their subgraphs
+        for (Object src : pendingReferenceObjects) {
+            if (!visited.contains(src)) {
+                setPendingReferences(src);
+            }
+        }
+        context.removeFromCopyStages(visited);
+    }
+
+    private void walk(Object root) throws Exception {
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(root, references(root)));
+        visited.add(root);
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (frame.position < frame.references.length) {
+                Object reference = frame.references[frame.position++];
+                if (reference != null && !visited.contains(reference)) {
+                    visited.add(reference);
+                    stack.push(new Frame(reference, references(reference)));
+                }
+                continue;
+            }
+            stack.pop();
+            complete(frame.src, frame.references);
+        }
+    }
+
+    /**
+     * Source objects which copies are referenced by copy of src.
+     */
+    private Object[] references(Object src) throws Exception {
+        Object copy = context.getCopyInstanceFor(src);
+        if (copy == null || copy == src) {
+            // Copied to null by custom function, or shared
+            return NO_REFERENCES;
+        }
+        ClassCopyPlan plan = module.copyPlan(src.getClass());
+        switch (plan.strategy()) {
+            case OBJECT_ARRAY -> {
+                return (Object[]) src;
+            }
+            case CONSTRUCTOR -> {
+                ConstructorCopier copier = plan.constructorCopier();
+                Object[] components = copier.components(src);
+                for (int i = 0; i < components.length; i++) {
+                    if (!copier.isReference(i)) {
+                        components[i] = null;
+                    }
+                }
+                return components;
+            }
+            case PLUGIN -> {
+                Object[] elements = module.structureElements(src, plan);
+                return elements != null ? elements : referenceFieldValues(src, plan);
+            }
+            case REFLECTIVE -> {
+                return referenceFieldValues(src, plan);
+            }
+            default -> {
+                return NO_REFERENCES;
+            }
+        }
+    }
+
+    private static Object[] referenceFieldValues(Object src, ClassCopyPlan plan) throws IllegalAccessException {
+        FieldAccessor[] referenceFields = plan.referenceFields();
+        Object[] values = new Object[referenceFields.length];
+        for (int i = 0; i < referenceFields.length; i++) {
+            values[i] = referenceFields[i].get(src);
+        }
+        return values;
+    }
+
+    private void complete(Object src, Object[] references) throws Exception {
+        // Referenced object can be still pending only if it's on walk stack, i.e. src is in its cycle
+        for (Object reference : references) {
+            if (reference != null && context.getCopyInstanceFor(reference) == CopyObjectContext.PENDING_CONSTRUCTION) {
+                constructNow(reference);
+            }
+        }
+        if (pendingReferenceObjects.contains(src)) {
+            setPendingReferences(src);
+        }
+        if (deferredReferenceObjects.contains(src)) {
+            module.setDeferredReferences(src, context);
+        }
+        if (valueDependentDataStructures.contains(src)) {
+            module.fillValueDependentDataStructure(src, context);
+        }
+        if (context.getCopyInstanceFor(src) == CopyObjectContext.PENDING_CONSTRUCTION) {
+            constructNow(src);
+        }
+    }
+
+    /**
+     * Constructs pending object with current copies of its components, pending components are constructed first.
+     */
+    private void constructNow(Object src) throws IllegalAccessException {
+        CopyWorklist constructions = new CopyWorklist();
+        constructions.push(src, 0);
+        constructionsInProgress.add(src);
+        while (!constructions.isEmpty()) {
+            Object pending = constructions.peek();
+            ConstructorCopier copier = module.copyPlan(pending.getClass()).constructorCopier();
+            Object[] components = copier.components(pending);
+            Object pendingComponent = null;
+            for (int i = 0; i < components.length && pendingComponent == null; i++) {
+                if (!copier.isReference(i) || components[i] == null) {
+                    continue;
+                }
+                Object componentCopy = context.getCopyInstanceFor(components[i]);
+                if (componentCopy == CopyObjectContext.PENDING_CONSTRUCTION) {
+                    pendingComponent = components[i];
+                    if (!constructionsInProgress.add(pendingComponent)) {
+                        throw new IllegalStateException("Object of " + pendingComponent.getClass().getName()
+                                + " copied by constructor references itself through objects copied by constructor");
+                    }
+                    constructions.push(pendingComponent, 0);
+                } else {
+                    components[i] = componentCopy;
+                }
+            }
+            if (pendingComponent == null) {
+                constructions.pop();
+                constructionsInProgress.remove(pending);
+                context.completeConstruction(pending, copier.construct(pending, components));
+            }
+        }
+    }
+
+    /**
+     * Sets references of copy again, now that constructions it referenced are done.
+     */
+    private void setPendingReferences(Object src) throws IllegalAccessException {
+        Object copy = context.getCopyInstanceFor(src);
+        ClassCopyPlan plan = module.copyPlan(src.getClass());
+        if (plan.strategy() == ClassCopyPlan.Strategy.OBJECT_ARRAY) {
+            Object[] srcArray = (Object[]) src;
+            Object[] copyArray = (Object[]) copy;
+            for (int i = 0; i < srcArray.length; i++) {
+                copyArray[i] = context.getCopyInstanceFor(srcArray[i]);
+            }
+        } else {
+            plan.copier().copyReferenceFields(src, copy, context::getCopyInstanceFor);
+        }
+    }
+
+    private static Set<Object> identitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private static final class Frame {
+
+        private final Object src;
+        private final Object[] references;
+        private int position;
+
+        private Frame(Object src, Object[] references) {
+            this.src = src;
+            this.references = references;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package deepcopy;
+
+import java.util.function.Consumer;
+
+/**
+ * Adapter of plugin that implements deprecated {@link DeepCopyModulePlugin#supports(Object)} only. Its support can't be
+ * resolved per class, so adapter is taken for every class and asks plugin for every object on every stage, as stages did
+ * before support was cached per class. Plugin that doesn't support object is skipped as if it didn't proceed it.
+ */
+// Calling deprecated supports(Object) is the whole purpose of adapter
+@SuppressWarnings("deprecation")
+final class PerObjectSupportPlugin implements DeepCopyModulePlugin {
+
+    private final DeepCopyModulePlugin plugin;
+
+    private PerObjectSupportPlugin(DeepCopyModulePlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @return adapter if plugin overrides supports(Object) only, otherwise plugin itself
+     */
+    static DeepCopyModulePlugin adaptIfNeeded(DeepCopyModulePlugin plugin) {
+        try {
+            Class<?> pluginClass = plugin.getClass();
+            boolean classSupport = pluginClass.getMethod("supports", Class.class).getDeclaringClass() != DeepCopyModulePlugin.class;
+            boolean objectSupport = pluginClass.getMethod("supports", Object.class).getDeclaringClass() != DeepCopyModulePlugin.class;
+            return objectSupport && !classSupport ? new PerObjectSupportPlugin(plugin) : plugin;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Plugin interface method is not found", e);
+        }
+    }
+
+    DeepCopyModulePlugin plugin() {
+        return plugin;
+    }
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return true;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) throws Exception {
+        return plugin.supports(src) && plugin.instantiateCopyObjects(src, context, nestedObjectsInstantiation);
+    }
+
+    @Override
+    public boolean reuseCopyObject(Object src, Object previousCopy, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) throws Exception {
+        return plugin.supports(src) && plugin.reuseCopyObject(src, previousCopy, context, nestedObjectsInstantiation);
+    }
+
+    @Override
+    public boolean setReferenceFields(Object src, CopyObjectContext context) {
+        return plugin.supports(src) && plugin.setReferenceFields(src, context);
+    }
+
+    @Override
+    public boolean fillValueDependentDataStructure(Object src, CopyObjectContext context) {
+        return plugin.supports(src) && plugin.fillValueDependentDataStructure(src, context);
+    }
+}
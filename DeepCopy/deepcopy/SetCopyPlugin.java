@@ -9,8 +9,8 @@ import java.util.function.Consumer;
 public class SetCopyPlugin implements DeepCopyModulePlugin {
 
     @Override
-    public boolean supports(Object src) {
-        return Set.class.isAssignableFrom(src.getClass());
+    public boolean supports(Class<?> srcClass) {
+        return Set.class.isAssignableFrom(srcClass);
     }
 
     @Override
@@ -0,0 +1,80 @@
+package deepcopy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.UnaryOperator;
+
+/**
+ *
+ * Copier of one class combined from field handles into two straight-line method handles:
+ * one copies all fields copied as is (primitive and shared ones), another one sets all reference fields.
+ * JDK compiles such handle trees into hidden classes and customizes them per handle instance after a number of calls,
+ * so JIT sees plain sequence of field reads and writes instead of loop over accessors.
+ *
+ */
+final class SpecializedCopier implements ObjectCopier {
+
+    private static final MethodType VALUES_COPY_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType REFERENCES_COPY_TYPE = MethodType.methodType(void.class, Object.class, Object.class, UnaryOperator.class);
+    private static final MethodHandle APPLY_REFERENCES;
+
+    static {
+        try {
+            APPLY_REFERENCES = MethodHandles.publicLookup().findVirtual(UnaryOperator.class, "apply", MethodType.methodType(Object.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MethodHandle valuesCopy;
+    private final MethodHandle referencesCopy;
+
+    private SpecializedCopier(MethodHandle valuesCopy, MethodHandle referencesCopy) {
+        this.valuesCopy = valuesCopy;
+        this.referencesCopy = referencesCopy;
+    }
+
+    static SpecializedCopier generate(FieldAccessor[] valueFields, FieldAccessor[] referenceFields) {
+        MethodHandle valuesCopy = MethodHandles.empty(VALUES_COPY_TYPE);
+        for (int i = valueFields.length - 1; i >= 0; i--) {
+            // (copy, src) -> setter(copy, getter(src)), then reordered to (src, copy)
+            MethodHandle fieldCopy = MethodHandles.filterArguments(valueFields[i].setter, 1, valueFields[i].getter);
+            fieldCopy = MethodHandles.permuteArguments(fieldCopy, VALUES_COPY_TYPE, 1, 0);
+            valuesCopy = MethodHandles.foldArguments(valuesCopy, fieldCopy);
+        }
+
+        MethodHandle referencesCopy = MethodHandles.empty(REFERENCES_COPY_TYPE);
+        for (int i = referenceFields.length - 1; i >= 0; i--) {
+            // (copy, references, src) -> setter(copy, references.apply(getter(src))), then reordered to (src, copy, references)
+            MethodHandle valueCopy = MethodHandles.filterArguments(APPLY_REFERENCES, 1, referenceFields[i].getter);
+            MethodHandle fieldCopy = MethodHandles.collectArguments(referenceFields[i].setter, 1, valueCopy);
+            fieldCopy = MethodHandles.permuteArguments(fieldCopy, REFERENCES_COPY_TYPE, 1, 2, 0);
+            referencesCopy = MethodHandles.foldArguments(referencesCopy, fieldCopy);
+        }
+
+        return new SpecializedCopier(valuesCopy, referencesCopy);
+    }
+
+    @Override
+    public void copyValueFields(Object src, Object copy) {
+        try {
+            valuesCopy.invokeExact(src, copy);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Can't copy fields of " + src.getClass(), e);
+        }
+    }
+
+    @Override
+    public void copyReferenceFields(Object src, Object copy, UnaryOperator<Object> references) {
+        try {
+            referencesCopy.invokeExact(src, copy, references);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Can't copy fields of " + src.getClass(), e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package deepcopy;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Copies TreeMap in linear time. Copies of entries are passed to putAll() of empty copy as sorted map
+ * with the same comparator, so TreeMap builds balanced tree from already sorted entries instead of n log n inserts.
+ * Copies of keys are expected to be ordered in the same way as source keys, as in any other value dependent structure copy.
+ */
+public class TreeMapCopyPlugin implements DeepCopyModulePlugin {
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass == TreeMap.class;
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        TreeMap<?, ?> srcMap = (TreeMap<?, ?>) src;
+        context.putCopyInstanceFor(src, new TreeMap<>(srcMap.comparator()));
+        context.registerValueDependentDataStructure(src);
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            nestedObjectsInstantiation.accept(entry.getKey());
+            nestedObjectsInstantiation.accept(entry.getValue());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean reuseCopyObject(Object src, Object previousCopy, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) {
+        TreeMap<?, ?> srcMap = (TreeMap<?, ?>) src;
+        if (!(previousCopy instanceof TreeMap<?, ?> previousMap) || previousMap.comparator() != srcMap.comparator()) {
+            return false;
+        }
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            context.registerReusableCopy(entry.getValue(), previousMap.get(entry.getKey()));
+        }
+        // Map is empty again, so putAll() still builds tree in linear time
+        previousMap.clear();
+        context.putCopyInstanceFor(src, previousMap);
+        context.registerValueDependentDataStructure(src);
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            nestedObjectsInstantiation.accept(entry.getKey());
+            nestedObjectsInstantiation.accept(entry.getValue());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean fillValueDependentDataStructure(Object src, CopyObjectContext context) {
+        TreeMap<?, ?> srcMap = (TreeMap<?, ?>) src;
+        TreeMap<Object, Object> copyMap = (TreeMap<Object, Object>) context.getCopyInstanceFor(srcMap);
+        List<Map.Entry<Object, Object>> copyEntries = new ArrayList<>(srcMap.size());
+        for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+            copyEntries.add(new AbstractMap.SimpleImmutableEntry<>(
+                    context.getCopyInstanceFor(entry.getKey()),
+                    context.getCopyInstanceFor(entry.getValue())
+            ));
+        }
+        copyMap.putAll(new SortedEntries(copyEntries, srcMap.comparator()));
+        return true;
+    }
+
+    /**
+     * Read only sorted map over entries that are already in order, as TreeMap.putAll() needs it.
+     * Sub maps are views over ranges of the same entries, range bounds are found by binary search.
+     */
+    private static class SortedEntries extends AbstractMap<Object, Object> implements SortedMap<Object, Object> {
+
+        private final List<Map.Entry<Object, Object>> entries;
+        private final Comparator<Object> comparator;
+
+        private SortedEntries(List<Map.Entry<Object, Object>> entries, Comparator<?> comparator) {
+            this.entries = entries;
+            this.comparator = (Comparator<Object>) comparator;
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Object, Object>> iterator() {
+                    return entries.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super Object> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public SortedMap<Object, Object> subMap(Object fromKey, Object toKey) {
+            if (compare(fromKey, toKey) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            return new SortedEntries(entries.subList(lowerBound(fromKey), lowerBound(toKey)), comparator);
+        }
+
+        @Override
+        public SortedMap<Object, Object> headMap(Object toKey) {
+            return new SortedEntries(entries.subList(0, lowerBound(toKey)), comparator);
+        }
+
+        @Override
+        public SortedMap<Object, Object> tailMap(Object fromKey) {
+            return new SortedEntries(entries.subList(lowerBound(fromKey), entries.size()), comparator);
+        }
+
+        @Override
+        public Object firstKey() {
+            return entries.getFirst().getKey();
+        }
+
+        @Override
+        public Object lastKey() {
+            return entries.getLast().getKey();
+        }
+
+        /**
+         * Index of the first entry with key not less than given key.
+         */
+        private int lowerBound(Object key) {
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(entries.get(middle).getKey(), key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int compare(Object key1, Object key2) {
+            return comparator != null ? comparator.compare(key1, key2) : ((Comparable<Object>) key1).compareTo(key2);
+        }
+    }
+}
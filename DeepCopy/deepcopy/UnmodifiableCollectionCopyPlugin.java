@@ -0,0 +1,199 @@
+package deepcopy;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Copies Collections.unmodifiable*() views. List.of() and other immutable collections are not views,
+ * they are copied by their factories with copies of elements.
+ * <p>
+ * Collections.unmodifiable*() view shares its backing collection with whoever created it, and copy of view must wrap
+ * copy of that backing collection, so changes of backing copy are seen through view copy. Backing collection
+ * is a private field of view, so when java.util is open to the module view copy is constructed over an empty
+ * placeholder and its backing fields are set to copies of source backing fields. Otherwise backing collection
+ * can't be reached and view copy wraps a collection of its own.
+ */
+public class UnmodifiableCollectionCopyPlugin implements DeepCopyModulePlugin {
+
+    private static final boolean BACKING_COLLECTION_READABLE = Collection.class.getModule()
+            .isOpen("java.util", UnmodifiableCollectionCopyPlugin.class.getModule());
+
+    private static final ClassValue<ViewLayout> VIEW_LAYOUTS = new ClassValue<>() {
+        @Override
+        protected ViewLayout computeValue(Class<?> viewClass) {
+            try {
+                return ViewLayout.of(viewClass);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Can't access fields of " + viewClass.getName(), e);
+            }
+        }
+    };
+
+    @Override
+    public boolean supports(Class<?> srcClass) {
+        return srcClass.getName().startsWith("java.util.Collections$Unmodifiable");
+    }
+
+    @Override
+    public boolean instantiateCopyObjects(Object src, CopyObjectContext context, Consumer<Object> nestedObjectsInstantiation) throws Exception {
+        if (isReadableView(src.getClass())) {
+            ViewLayout layout = VIEW_LAYOUTS.get(src.getClass());
+            Object viewCopy = layout.newPlaceholderView();
+            context.putCopyInstanceFor(src, viewCopy);
+            if (context.getCopyInstanceFor(src) == viewCopy) {
+                for (FieldAccessor backingField : layout.backingFields()) {
+                    nestedObjectsInstantiation.accept(backingField.get(src));
+                }
+            }
+            return true;
+        }
+        Object copy;
+        Object backingCopy;
+        if (src instanceof SortedMap<?, ?> srcMap) {
+            TreeMap<Object, Object> backingMap = new TreeMap<>((Comparator<Object>) srcMap.comparator());
+            backingCopy = backingMap;
+            copy = src instanceof NavigableMap<?, ?> ? Collections.unmodifiableNavigableMap(backingMap) : Collections.unmodifiableSortedMap(backingMap);
+        } else if (src instanceof Map<?, ?> srcMap) {
+            Map<Object, Object> backingMap = LinkedHashMap.newLinkedHashMap(srcMap.size());
+            backingCopy = backingMap;
+            copy = Collections.unmodifiableMap(backingMap);
+        } else if (src instanceof SortedSet<?> srcSet) {
+            TreeSet<Object> backingSet = new TreeSet<>((Comparator<Object>) srcSet.comparator());
+            backingCopy = backingSet;
+            copy = src instanceof NavigableSet<?> ? Collections.unmodifiableNavigableSet(backingSet) : Collections.unmodifiableSortedSet(backingSet);
+        } else if (src instanceof Set<?> srcSet) {
+            Set<Object> backingSet = LinkedHashSet.newLinkedHashSet(srcSet.size());
+            backingCopy = backingSet;
+            copy = Collections.unmodifiableSet(backingSet);
+        } else if (src instanceof List<?> srcList) {
+            List<Object> backingList = new ArrayList<>(srcList.size());
+            backingCopy = backingList;
+            copy = Collections.unmodifiableList(backingList);
+        } else if (src instanceof Collection<?> srcCollection) {
+            List<Object> backingList = new ArrayList<>(srcCollection.size());
+            backingCopy = backingList;
+            copy = Collections.unmodifiableCollection(backingList);
+        } else {
+            return false;
+        }
+        context.putCopyInstanceFor(src, copy);
+        if (context.getCopyInstanceFor(src) != copy) {
+            // Parallel copy has instantiated it already with another backing collection
+            return true;
+        }
+        context.putPluginData(src, backingCopy);
+
+        if (src instanceof Map<?, ?> srcMap) {
+            context.registerValueDependentDataStructure(src);
+            for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+                nestedObjectsInstantiation.accept(entry.getKey());
+                nestedObjectsInstantiation.accept(entry.getValue());
+            }
+            return true;
+        }
+        if (src instanceof Set<?>) {
+            context.registerValueDependentDataStructure(src);
+        }
+        for (Object value : (Collection<?>) src) {
+            nestedObjectsInstantiation.accept(value);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setReferenceFields(Object src, CopyObjectContext context) {
+        if (isReadableView(src.getClass())) {
+            Object viewCopy = context.getCopyInstanceFor(src);
+            for (FieldAccessor backingField : VIEW_LAYOUTS.get(src.getClass()).backingFields()) {
+                backingField.set(viewCopy, context.getCopyInstanceFor(backingField.get(src)));
+            }
+            return true;
+        }
+        if (src instanceof Map<?, ?> || src instanceof Set<?>) {
+            return true;
+        }
+        Collection<Object> backingCopy = (Collection<Object>) context.getPluginData(src);
+        for (Object value : (Collection<?>) src) {
+            backingCopy.add(context.getCopyInstanceFor(value));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean fillValueDependentDataStructure(Object src, CopyObjectContext context) {
+        if (src instanceof Map<?, ?> srcMap) {
+            Map<Object, Object> backingCopy = (Map<Object, Object>) context.getPluginData(src);
+            for (Map.Entry<?, ?> entry : srcMap.entrySet()) {
+                backingCopy.put(
+                        context.getCopyInstanceFor(entry.getKey()),
+                        context.getCopyInstanceFor(entry.getValue())
+                );
+            }
+        } else {
+            Collection<Object> backingCopy = (Collection<Object>) context.getPluginData(src);
+            for (Object value : (Collection<?>) src) {
+                backingCopy.add(context.getCopyInstanceFor(value));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Top level Collections.unmodifiable*() views only, views nested in them (e.g. entry set of map view)
+     * wrap collections which can't be copied on their own.
+     */
+    private static boolean isReadableView(Class<?> srcClass) {
+        String className = srcClass.getName();
+        return BACKING_COLLECTION_READABLE
+                && className.startsWith("java.util.Collections$Unmodifiable")
+                && className.indexOf('$') == className.lastIndexOf('$');
+    }
+
+    /**
+     * View constructor, taking the backing collection, and non-transient fields of view, which are backing collection
+     * under different static types. Transient fields are lazily created views of backing collection, they are left null.
+     */
+    private record ViewLayout(Constructor<?> constructor, Class<?> backingType, List<FieldAccessor> backingFields) {
+
+        private static final List<Class<?>> PLACEHOLDER_CLASSES = List.of(
+                ArrayList.class, LinkedHashSet.class, TreeSet.class, LinkedHashMap.class, TreeMap.class);
+
+        static ViewLayout of(Class<?> viewClass) throws ReflectiveOperationException {
+            Constructor<?> constructor = null;
+            for (Constructor<?> declaredConstructor : viewClass.getDeclaredConstructors()) {
+                if (declaredConstructor.getParameterCount() == 1) {
+                    constructor = declaredConstructor;
+                }
+            }
+            if (constructor == null) {
+                throw new NoSuchMethodException(viewClass.getName() + ".<init>(backing collection)");
+            }
+            constructor.setAccessible(true);
+            Class<?> parameterType = constructor.getParameterTypes()[0];
+            Class<?> backingType = PLACEHOLDER_CLASSES.stream()
+                    .filter(parameterType::isAssignableFrom)
+                    .findFirst()
+                    .orElseThrow(() -> new NoSuchMethodException("No placeholder for " + parameterType.getName()));
+
+            List<FieldAccessor> backingFields = new ArrayList<>();
+            for (Class<?> type = viewClass; type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    backingFields.add(FieldAccessor.of(field));
+                }
+            }
+            return new ViewLayout(constructor, backingType, List.copyOf(backingFields));
+        }
+
+        Object newPlaceholderView() throws ReflectiveOperationException {
+            return constructor.newInstance(backingType.getConstructor().newInstance());
+        }
+    }
+}
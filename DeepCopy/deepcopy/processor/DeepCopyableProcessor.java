@@ -0,0 +1,274 @@
+package deepcopy.processor;
+
+import deepcopy.DeepCopier;
+import deepcopy.DeepCopyable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ *
+ * Generates {@link DeepCopier} for every {@link DeepCopyable} class: plain field assignments in the same package
+ * as class, so copier needs neither reflection nor warm-up. Field that isn't accessible from the package, or is final,
+ * is read and set by its bean accessors getX() or isX() and setX() if they are. Generated copiers are listed in
+ * META-INF/services/deepcopy.DeepCopier of class output, that's how {@link deepcopy.DeepCopyModule} finds them.
+ * Copier of nested class Outer.Inner is named Outer_InnerCopier.
+ *
+ */
+@SupportedAnnotationTypes("deepcopy.DeepCopyable")
+public class DeepCopyableProcessor extends AbstractProcessor {
+
+    private final List<String> generatedCopiers = new ArrayList<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(DeepCopyable.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@DeepCopyable is applicable to classes only");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (isCopiable(type)) {
+                List<CopiedField> fields = copiedFields(type);
+                if (fields != null) {
+                    generateCopier(type, fields);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !generatedCopiers.isEmpty()) {
+            writeServiceFile();
+        }
+        return true;
+    }
+
+    private boolean isCopiable(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            error(type, "@DeepCopyable class can't be abstract or private");
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            error(type, "@DeepCopyable nested class must be static");
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            error(type, "@DeepCopyable class can't be local or anonymous");
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error(type, "@DeepCopyable class must have non-private no-arg constructor");
+        return false;
+    }
+
+    /**
+     * Field of copied class with accessors generated copier reads and sets it by, null accessor means direct access.
+     */
+    private record CopiedField(VariableElement field, String getter, String setter) {
+    }
+
+    /**
+     * @return non-static fields of type and its superclasses, or null if any of them can't be assigned by generated copier
+     */
+    private List<CopiedField> copiedFields(TypeElement type) {
+        PackageElement copierPackage = processingEnv.getElementUtils().getPackageOf(type);
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+        List<CopiedField> fields = new ArrayList<>();
+        boolean valid = true;
+        for (TypeElement cls = type; cls != null; cls = superclassOf(cls)) {
+            for (VariableElement field : ElementFilter.fieldsIn(cls.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC)) {
+                    continue;
+                }
+                boolean readable = isAccessible(field, copierPackage);
+                boolean writable = readable && !modifiers.contains(Modifier.FINAL);
+                String getter = readable ? null : accessor(methods, getterNames(field), field, false, copierPackage);
+                String setter = writable ? null : accessor(methods, List.of("set" + capitalized(field)), field, true, copierPackage);
+                if ((!readable && getter == null) || (!writable && setter == null)) {
+                    error(type, "Field " + cls.getSimpleName() + "." + field.getSimpleName() + " of @DeepCopyable class must be non-final and accessible from "
+                            + copierPackage.getQualifiedName() + ", or have getter and setter accessible from there");
+                    valid = false;
+                }
+                fields.add(new CopiedField(field, getter, setter));
+            }
+        }
+        return valid ? fields : null;
+    }
+
+    private boolean isAccessible(Element member, PackageElement copierPackage) {
+        Set<Modifier> modifiers = member.getModifiers();
+        return !modifiers.contains(Modifier.PRIVATE) && (modifiers.contains(Modifier.PUBLIC)
+                || processingEnv.getElementUtils().getPackageOf(member).equals(copierPackage));
+    }
+
+    private static List<String> getterNames(VariableElement field) {
+        String getter = "get" + capitalized(field);
+        return field.asType().getKind() == TypeKind.BOOLEAN ? List.of(getter, "is" + capitalized(field)) : List.of(getter);
+    }
+
+    private static String capitalized(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * @return name of instance method taking field value if setter, or returning it otherwise, or null if there is no such one accessible
+     */
+    private String accessor(List<ExecutableElement> methods, List<String> names, VariableElement field, boolean setter, PackageElement copierPackage) {
+        for (ExecutableElement method : methods) {
+            if (!names.contains(method.getSimpleName().toString()) || method.getModifiers().contains(Modifier.STATIC)
+                    || !isAccessible(method, copierPackage)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = method.getParameters();
+            TypeMirror valueType = setter
+                    ? (parameters.size() == 1 && method.getReturnType().getKind() == TypeKind.VOID ? parameters.get(0).asType() : null)
+                    : (parameters.isEmpty() ? method.getReturnType() : null);
+            if (valueType != null && processingEnv.getTypeUtils().isSameType(valueType, field.asType())) {
+                return method.getSimpleName().toString();
+            }
+        }
+        return null;
+    }
+
+    private TypeElement superclassOf(TypeElement cls) {
+        TypeMirror superclass = cls.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        return superElement.getQualifiedName().contentEquals(Object.class.getName()) ? null : superElement;
+    }
+
+    private void generateCopier(TypeElement type, List<CopiedField> fields) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String copierName = copierName(type);
+        String typeName = type.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(copierName).append(" implements ").append(DeepCopier.class.getName())
+                .append("<").append(typeName).append("> {\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public Class<").append(typeName).append("> type() {\n");
+        source.append("        return ").append(typeName).append(".class;\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public ").append(typeName).append(" newInstance() {\n");
+        source.append("        return new ").append(typeName).append("();\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public void copyValueFields(").append(typeName).append(" src, ").append(typeName).append(" copy) {\n");
+        for (CopiedField field : fields) {
+            if (field.field().asType().getKind().isPrimitive()) {
+                source.append("        ").append(assignment("copy", type, field, read("src", type, field))).append(";\n");
+            }
+        }
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public void copyReferenceFields(").append(typeName).append(" src, ").append(typeName)
+                .append(" copy, java.util.function.UnaryOperator<Object> references) {\n");
+        for (CopiedField field : fields) {
+            if (!field.field().asType().getKind().isPrimitive()) {
+                String fieldType = processingEnv.getTypeUtils().erasure(field.field().asType()).toString();
+                String value = "(" + fieldType + ") references.apply(" + read("src", type, field) + ")";
+                source.append("        ").append(assignment("copy", type, field, value)).append(";\n");
+            }
+        }
+        source.append("    }\n");
+        source.append("}\n");
+
+        String qualifiedCopierName = packageName.isEmpty() ? copierName : packageName + "." + copierName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedCopierName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            error(type, "Can't write copier " + qualifiedCopierName + ": " + e.getMessage());
+            return;
+        }
+        generatedCopiers.add(qualifiedCopierName);
+        originatingElements.add(type);
+    }
+
+    private static String read(String variable, TypeElement type, CopiedField field) {
+        return field.getter() == null ? fieldOf(variable, type, field.field()) : variable + "." + field.getter() + "()";
+    }
+
+    private static String assignment(String variable, TypeElement type, CopiedField field, String value) {
+        return field.setter() == null ? fieldOf(variable, type, field.field()) + " = " + value : variable + "." + field.setter() + "(" + value + ")";
+    }
+
+    /**
+     * Field reference on variable, with cast to declaring class for inherited fields, so fields hidden by subclass resolve right.
+     */
+    private static String fieldOf(String variable, TypeElement type, VariableElement field) {
+        TypeElement declaringClass = (TypeElement) field.getEnclosingElement();
+        if (declaringClass.equals(type)) {
+            return variable + "." + field.getSimpleName();
+        }
+        return "((" + declaringClass.getQualifiedName() + ") " + variable + ")." + field.getSimpleName();
+    }
+
+    private static String copierName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.append("Copier").toString();
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/" + DeepCopier.class.getName(), originatingElements.toArray(Element[]::new));
+            try (Writer writer = file.openWriter()) {
+                for (String copier : generatedCopiers) {
+                    writer.write(copier);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can't write copiers service file: " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
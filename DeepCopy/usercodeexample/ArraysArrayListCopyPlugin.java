@@ -15,8 +15,8 @@ public class ArraysArrayListCopyPlugin implements DeepCopyModulePlugin {
     private final Class<?> supportedClass = Arrays.asList().getClass();
 
     @Override
-    public boolean supports(Object src) {
-        return src.getClass().equals(supportedClass);
+    public boolean supports(Class<?> srcClass) {
+        return srcClass.equals(supportedClass);
     }
 
     @Override